@@ -0,0 +1,93 @@
+/**
+ * Big-M constants of the RTPL, ZDRTPL, WCD and ZDWCD models derived from the data of the instance, instead of
+ * GRB.MAXINT and 10000. Each constant is the smallest value for which the constraint is still implied by the other
+ * constraints, which gives much tighter LP relaxations and avoids the numerical trouble of huge coefficients
+ *
+ * @author 562606ad
+ */
+public class BigM {
+    /**
+     * Use the constants derived from the data, otherwise GRB.MAXINT and 10000 as before
+     */
+    public static boolean tight = true;
+
+    /**
+     * Maximum number of trips of one bus from each demand point. A bus serves one pick-up location (3) within maxT (12),
+     * so it makes at most maxT divided by the shortest driving time from the demand point to a shelter trips, and all its
+     * trips together never carry more than the shelters can hold (2)
+     * @param maxT Maximum driving time for the buses
+     * @param times Travel times between demand points and shelters
+     * @param shelterCap Array of shelter capacities
+     * @param busCap Capacity of each bus
+     * @return Maximum number of trips of one bus from each demand point
+     */
+    public static int[] maxTrips(int maxT, int[][] times, int[] shelterCap, int busCap) {
+        int byCapacity = 0;
+
+        for (int capacity : shelterCap) {
+            byCapacity += capacity / busCap;
+        }
+        int[] maxTrips = new int[times.length];
+
+        for (int i = 0; i < times.length; i++) {
+            int shortest = Integer.MAX_VALUE;
+
+            for (int j = 0; j < times[i].length; j++) {
+                shortest = Math.min(shortest, times[i][j]);
+            }
+            maxTrips[i] = shortest > 0 ? Math.min(byCapacity, maxT / shortest) : byCapacity;
+        }
+        return maxTrips;
+    }
+
+    /**
+     * Maximum walking time of each demand point, the longest walk to a pick-up location it can be assigned to
+     * @param walkingTimes Walking times between demand points, indexed [i][p]
+     * @param candidates Pick-up locations each demand point can walk to
+     * @return Maximum walking time of each demand point
+     */
+    public static int[] maxWalk(int[][] walkingTimes, PickUpCandidates candidates) {
+        int[] maxWalk = new int[walkingTimes.length];
+
+        for (int i = 0; i < walkingTimes.length; i++) {
+            for (int p = 0; p < walkingTimes.length; p++) {
+                if (candidates.canWalk[p][i]) {
+                    maxWalk[i] = Math.max(maxWalk[i], walkingTimes[i][p]);
+                }
+            }
+        }
+        return maxWalk;
+    }
+
+    /**
+     * Highest demand of each demand point over all demand vectors
+     * @param demandVectors List of the possible vectors of demand for each demand point
+     * @return Highest demand of each demand point
+     */
+    public static int[] maxDemand(DemandMatrix demandVectors) {
+        int[] maxDemand = new int[demandVectors.numDP];
+
+        for (int s = 0; s < demandVectors.size(); s++) {
+            for (int i = 0; i < demandVectors.numDP; i++) {
+                maxDemand[i] = Math.max(maxDemand[i], demandVectors.get(s, i));
+            }
+        }
+        return maxDemand;
+    }
+
+    /**
+     * Maximum accumulated demand of a cluster, if every demand point that walks to the pick-up location has its highest
+     * demand
+     * @param isClosestPickUpValues Values of the closest pick-up location variables of the pick-up location, indexed [i]
+     * @param maxDemand Highest demand of each demand point
+     * @return Maximum accumulated demand of the cluster
+     */
+    public static double maxAccumulatedDemand(double[] isClosestPickUpValues, int[] maxDemand) {
+        double accumulated = 0;
+
+        for (int i = 0; i < maxDemand.length; i++) {
+            accumulated += isClosestPickUpValues[i] * maxDemand[i];
+        }
+        return accumulated;
+    }
+}
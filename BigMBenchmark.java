@@ -0,0 +1,60 @@
+import com.gurobi.gurobi.GRB;
+
+/**
+ * Compares the RTPL model with the big-M constants GRB.MAXINT and 10000 against the constants derived from the data
+ * by BigM, on the Sioux Falls network. For every pessimism value both versions are solved to optimality and the
+ * solve time, the number of branch-and-bound nodes of the last solve and the objective value are printed, the objective
+ * values must be the same. Usage: BigMBenchmark [walking times file] [driving times file]
+ *
+ * @author 562606ad
+ */
+public class BigMBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String walkingTimesPath = args.length > 0 ? args[0] : "Sioux Falls network data/Walking Times Sioux Falls.csv";
+        String drivingTimesPath = args.length > 1 ? args[1] : "Sioux Falls network data/Driving Times Sioux Falls.csv";
+
+        int[] nominalDemand = {
+            60, 42, 40, 46, 38,
+            50, 34, 44, 44, 52,
+            48, 40, 36, 26, 30 };
+        int[] highDemand = {
+            109, 66, 65, 84, 65,
+            84, 57, 69, 69, 93,
+            92, 65, 66, 49, 50 };
+
+        int[] shelterCapacities = {240, 333, 360, 300};
+
+        int longestWalk = 60;
+        int maxT = 180;
+        int busCap = 30;
+        int numBus = 10;
+
+        NetworkInstance network = NetworkInstance.load(NetworkInstance.NodeRoles.SIOUX_FALLS, drivingTimesPath,
+        walkingTimesPath, shelterCapacities, nominalDemand, highDemand);
+
+        System.out.println("pess,bigM,time (ms),nodes,objective");
+
+        try {
+            for (int pess = 0; pess <= network.numDP; pess++) {
+                for (boolean tight : new boolean[] {false, true}) {
+                    BigM.tight = tight;
+                    long startTime = System.nanoTime();
+
+                    try (RTPL rtpl = new RTPL(network, longestWalk, maxT, pess,
+                    DemandMatrix.of(network.getNominalDemand()), numBus, busCap)) {
+                        rtpl.solveRobust();
+
+                        long duration = (System.nanoTime() - startTime) / 1_000_000; // Convert to milliseconds
+
+                        System.out.println(pess + "," + (tight ? "data" : "constant") + "," + duration + ","
+                        + (long) rtpl.model.get(GRB.DoubleAttr.NodeCount) + "," + rtpl.model.get(GRB.DoubleAttr.ObjVal));
+                    }
+                }
+            }
+        } finally {
+            BigM.tight = true;
+            EnvPool.disposeAll();
+        }
+    }
+}
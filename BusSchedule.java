@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+/**
+ * Schedule of every bus: the pick-up location it is allocated to and its number of trips to each shelter. The
+ * bus-aggregated RTPL and ZDRTPL models only decide the number of buses at each pick-up location and the total number
+ * of trips from it to each shelter, which is split over the buses here so that every bus stays within maxT
+ *
+ * @author 562606ad
+ */
+public class BusSchedule {
+    public int numBus;
+    public double[][] busAllocation;
+    public double[][][] trips;
+
+    /**
+     * Constructor for a schedule
+     * @param busAllocation 1 if bus b is allocated to demand point i, indexed [b][i]
+     * @param trips Number of trips of bus b from demand point i to shelter j, indexed [b][i][j]
+     */
+    public BusSchedule(double[][] busAllocation, double[][][] trips) {
+        this.numBus = busAllocation.length;
+        this.busAllocation = busAllocation;
+        this.trips = trips;
+    }
+
+    /**
+     * Splits the bus and trip counts of the bus-aggregated model over the buses with first fit decreasing: the trips of
+     * each pick-up location, longest first, go to the first of its buses with enough time left. The model only bounds
+     * the total time and the number of trips to each shelter of the buses at a pick-up location, so the counts do not
+     * always fit in the buses, and as bin packing is hard first fit decreasing can also fail on counts that do fit
+     * @param busCount Number of buses at each demand point
+     * @param tripCount Number of trips from each demand point to each shelter
+     * @param times Travel times between demand points and shelters
+     * @param maxT Maximum driving time for the buses
+     * @param numBus Number of buses
+     * @return Schedule of every bus, or null if the trips do not fit in the buses within maxT
+     */
+    public static BusSchedule split(double[] busCount, double[][] tripCount, int[][] times, int maxT, int numBus) {
+        int numDP = busCount.length;
+        int numSh = tripCount[0].length;
+
+        double[][] busAllocation = new double[numBus][numDP];
+        double[][][] trips = new double[numBus][numDP][numSh];
+        int[] timeLeft = new int[numBus];
+        int first = 0;
+
+        Arrays.fill(timeLeft, maxT);
+
+        for (int i = 0; i < numDP; i++) {
+            int count = (int) Math.round(busCount[i]);
+
+            if (first + count > numBus) {
+                return null;
+            }
+            for (int b = first; b < first + count; b++) {
+                busAllocation[b][i] = 1;
+            }
+
+            // Shelters by decreasing driving time
+            Integer[] shelters = new Integer[numSh];
+
+            for (int j = 0; j < numSh; j++) {
+                shelters[j] = j;
+            }
+            final int dp = i;
+            Arrays.sort(shelters, (a, b) -> Integer.compare(times[dp][b], times[dp][a]));
+
+            for (int j : shelters) {
+                for (long t = Math.round(tripCount[i][j]); t > 0; t--) {
+                    int b = first;
+
+                    while (b < first + count && timeLeft[b] < times[i][j]) {
+                        b++;
+                    }
+                    if (b == first + count) {
+                        return null;
+                    }
+                    trips[b][i][j]++;
+                    timeLeft[b] -= times[i][j];
+                }
+            }
+            first += count;
+        }
+        return new BusSchedule(busAllocation, trips);
+    }
+}
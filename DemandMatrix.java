@@ -0,0 +1,138 @@
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Demand vectors (scenarios) of a network stored in one flat primitive array, with the demand of scenario s at demand
+ * point i at index s * numDP + i. Replaces lists of boxed arrays, which take about four times the memory and unbox on
+ * every read
+ *
+ * @author 562606ad
+ */
+public class DemandMatrix {
+    public int numDP;
+    public int numScenarios;
+    public int[] values;
+
+    /**
+     * Constructor for an empty demand matrix
+     * @param numDP Number of demand points
+     */
+    public DemandMatrix(int numDP) {
+        this(numDP, 4);
+    }
+
+    /**
+     * Constructor for an empty demand matrix with room for a number of scenarios
+     * @param numDP Number of demand points
+     * @param capacity Number of scenarios that fit before the array grows
+     */
+    public DemandMatrix(int numDP, int capacity) {
+        this.numDP = numDP;
+        this.values = new int[Math.max(1, capacity) * numDP];
+    }
+
+    /**
+     * Creates a demand matrix from demand vectors
+     * @param vectors Demand vectors, all of the same length
+     * @return Demand matrix with one scenario per vector
+     */
+    public static DemandMatrix of(int[]... vectors) {
+        DemandMatrix matrix = new DemandMatrix(vectors[0].length, vectors.length);
+
+        for (int[] vector : vectors) {
+            matrix.append(vector);
+        }
+        return matrix;
+    }
+
+    /**
+     * Creates a demand matrix from rows read from a CSV file
+     * @param rows Demand vectors, all of the same length
+     * @return Demand matrix with one scenario per row
+     */
+    public static DemandMatrix fromRows(List<int[]> rows) {
+        return of(rows.toArray(new int[0][]));
+    }
+
+    /**
+     * Get the number of scenarios
+     * @return Number of scenarios
+     */
+    public int size() {
+        return numScenarios;
+    }
+
+    /**
+     * Get the demand of a demand point in a scenario
+     * @param s Scenario
+     * @param i Demand point
+     * @return Demand of demand point i in scenario s
+     */
+    public int get(int s, int i) {
+        return values[s * numDP + i];
+    }
+
+    /**
+     * Get a copy of a scenario
+     * @param s Scenario
+     * @return Demand of each demand point in scenario s
+     */
+    public int[] row(int s) {
+        return Arrays.copyOfRange(values, s * numDP, (s + 1) * numDP);
+    }
+
+    /**
+     * Get a read-only view of a scenario, without copying it
+     * @param s Scenario
+     * @return View of the demand of each demand point in scenario s
+     */
+    public IntBuffer view(int s) {
+        return IntBuffer.wrap(values, s * numDP, numDP).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Appends a scenario
+     * @param vector Demand of each demand point
+     * @return Index of the new scenario
+     */
+    public int append(int[] vector) {
+        if ((numScenarios + 1) * numDP > values.length) {
+            values = Arrays.copyOf(values, Math.max(2 * values.length, (numScenarios + 1) * numDP));
+        }
+        System.arraycopy(vector, 0, values, numScenarios * numDP, numDP);
+        numScenarios++;
+
+        return numScenarios - 1;
+    }
+
+    /**
+     * Removes a scenario, the scenarios after it move down one index
+     * @param s Scenario
+     */
+    public void remove(int s) {
+        System.arraycopy(values, (s + 1) * numDP, values, s * numDP, (numScenarios - s - 1) * numDP);
+        numScenarios--;
+    }
+
+    /**
+     * Creates a demand matrix with a range of the scenarios
+     * @param from First scenario of the range
+     * @param to Scenario after the last scenario of the range
+     * @return Demand matrix with a copy of the scenarios from to to
+     */
+    public DemandMatrix slice(int from, int to) {
+        DemandMatrix slice = new DemandMatrix(numDP, to - from);
+        System.arraycopy(values, from * numDP, slice.values, 0, (to - from) * numDP);
+        slice.numScenarios = to - from;
+        return slice;
+    }
+
+    /**
+     * Creates a copy of the demand matrix that can be appended to without changing this one
+     * @return Copy of the demand matrix
+     */
+    public DemandMatrix copy() {
+        return slice(0, numScenarios);
+    }
+}
@@ -0,0 +1,63 @@
+import com.gurobi.gurobi.GRBException;
+
+/**
+ * Worst-case demand oracle of the robust cutting-plane loop: for a fixed plan it finds the demand vector of the
+ * uncertainty set with the largest total excess demand over the capacity of the buses at the pick-up locations.
+ * Implemented by the WCD and ZDWCD models and by the combinatorial oracles that can replace them
+ * 
+ * @author 562606ad
+ */
+public interface DemandOracle extends AutoCloseable {
+    /**
+     * Largest excess demand that is treated as numerical noise of the oracle. The demand values and the capacities of
+     * the buses are integers, so a real excess demand is at least 1
+     */
+    double EXCESS_TOLERANCE = 0.5;
+
+    /**
+     * Binds the oracle to a new plan
+     * @param isClosestPickUpValues Matrix with 1 if demand point i is assigned to pick-up location p, indexed [p][i]
+     * @param tripsValues Number of trips of each bus from a demand point to a shelter, indexed [b][i][j], or of all buses
+     * together in a single layer b = 0 for the bus-aggregated model
+     * @throws GRBException
+     */
+    void update(double[][] isClosestPickUpValues, double[][][] tripsValues) throws GRBException;
+
+    /**
+     * Binds the oracle to a new plan
+     * @param plan Snapshot of a solution of the RTPL or ZDRTPL model
+     * @throws GRBException
+     */
+    default void update(PlanSnapshot plan) throws GRBException {
+        update(plan.isClosestPickUp, plan.trips);
+    }
+
+    /**
+     * Changes the size of the uncertainty set: the degree of pessimism for the RTPL problem,
+     * the correlation parameter for the SRTPL problem
+     * @param level Degree of pessimism or correlation parameter
+     * @throws GRBException
+     */
+    void setUncertainty(double level) throws GRBException;
+
+    /**
+     * Finds the worst-case demand for the current plan
+     * @return Total excess demand of the worst-case demand vector
+     * @throws GRBException
+     */
+    double getObjective() throws GRBException;
+
+    /**
+     * Get the worst-case demand vector found by the last call to getObjective
+     * @return Demand of each demand point
+     * @throws GRBException
+     */
+    int[] getDemand() throws GRBException;
+
+    /**
+     * Frees the resources of the oracle
+     * @throws GRBException
+     */
+    @Override
+    void close() throws GRBException;
+}
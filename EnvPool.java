@@ -0,0 +1,81 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBEnv;
+import com.gurobi.gurobi.GRBException;
+
+/**
+ * Process-wide pool of Gurobi environments. Starting an environment checks out the license every time,
+ * so the models borrow an environment when they are built and give it back when they are disposed,
+ * and the environments are only disposed once at the end of the program. The number of threads Gurobi may use
+ * can be limited per calling thread, so concurrent sweep points share the cores instead of all taking every core
+ * 
+ * @author 562606ad
+ */
+public class EnvPool {
+    private static final Deque<GRBEnv> idle = new ArrayDeque<GRBEnv>();
+    private static final List<GRBEnv> created = new ArrayList<GRBEnv>();
+    private static final ThreadLocal<Integer> threads = ThreadLocal.withInitial(() -> 0);
+
+    /**
+     * Set the number of threads of the models built by the calling thread from now on
+     * @param numThreads Number of Gurobi threads, 0 lets Gurobi decide
+     */
+    public static void setThreads(int numThreads) {
+        threads.set(numThreads);
+    }
+
+    /**
+     * Borrow an environment from the pool, a new one is started only if all environments are in use.
+     * The environment is set to the thread count of the calling thread, which the models built from it copy
+     * @return Gurobi environment that is not used by any other live model
+     * @throws GRBException
+     */
+    public static GRBEnv borrow() throws GRBException {
+        GRBEnv env;
+
+        synchronized (EnvPool.class) {
+            env = idle.pollFirst();
+
+            if (env == null) {
+                env = new GRBEnv();
+                created.add(env);
+            }
+        }
+        env.set(GRB.IntParam.Threads, threads.get());
+
+        return env;
+    }
+
+    /**
+     * Give an environment back to the pool once the model using it has been disposed
+     * @param env Gurobi environment borrowed from the pool
+     */
+    public static synchronized void release(GRBEnv env) {
+        if (env != null) {
+            idle.addFirst(env);
+        }
+    }
+
+    /**
+     * Get the number of environments started by the pool
+     * @return Number of environments started
+     */
+    public static synchronized int size() {
+        return created.size();
+    }
+
+    /**
+     * Dispose of all the environments of the pool, should only be called when no model is alive anymore
+     * @throws GRBException
+     */
+    public static synchronized void disposeAll() throws GRBException {
+        for (GRBEnv env : created) {
+            env.dispose();
+        }
+        created.clear();
+        idle.clear();
+    }
+}
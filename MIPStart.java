@@ -0,0 +1,69 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+
+/**
+ * Values of the integer decision variables of the RTPL and ZDRTPL models (pick-up locations, bus allocation,
+ * closest pick-up locations and trips), used as a MIP start for a re-solve. Only the integer variables are stored:
+ * once they are fixed, Gurobi completes the distances and the accumulated demands by solving an LP
+ * 
+ * @author 562606ad
+ */
+public class MIPStart {
+    public double[] isPickUpLocation;
+    public double[][] busAllocation;
+    public double[][] isClosestPickUp;
+    public double[][][] trips;
+
+    /**
+     * Constructor for a MIP start given by the caller, for instance a plan from another run
+     * @param isPickUpLocation 1 if the demand point is a pick-up location, 0 otherwise
+     * @param busAllocation 1 if bus b is allocated to demand point i, indexed [b][i]
+     * @param isClosestPickUp 1 if demand point i walks to pick-up location p, indexed [p][i]
+     * @param trips Number of trips of bus b from demand point i to shelter j, indexed [b][i][j]
+     */
+    public MIPStart(double[] isPickUpLocation, double[][] busAllocation, double[][] isClosestPickUp, double[][][] trips) {
+        this.isPickUpLocation = isPickUpLocation;
+        this.busAllocation = busAllocation;
+        this.isClosestPickUp = isClosestPickUp;
+        this.trips = trips;
+    }
+
+    /**
+     * Reads the current solution of a model, with one attribute query per variable family
+     * @param model Solved model
+     * @param isPickUpLocation Pick-up location variables of the model
+     * @param busAllocation Bus allocation variables of the model
+     * @param isClosestPickUp Closest pick-up location variables of the model
+     * @param trips Trips variables of the model
+     * @return The current solution, or null if the model has no solution
+     * @throws GRBException
+     */
+    public static MIPStart fromSolution(GRBModel model, GRBVar[] isPickUpLocation, GRBVar[][] busAllocation,
+    GRBVar[][] isClosestPickUp, GRBVar[][][] trips) throws GRBException {
+        if (model.get(GRB.IntAttr.SolCount) == 0) {
+            return null;
+        }
+        return new MIPStart(model.get(GRB.DoubleAttr.X, isPickUpLocation), model.get(GRB.DoubleAttr.X, busAllocation),
+        model.get(GRB.DoubleAttr.X, isClosestPickUp), model.get(GRB.DoubleAttr.X, trips));
+    }
+
+    /**
+     * Sets the values as the MIP start of a model. If the start violates a constraint that was added after it was read,
+     * for instance a new demand vector, Gurobi tries to repair it instead of discarding it
+     * @param model Model to warm-start
+     * @param isPickUpLocation Pick-up location variables of the model
+     * @param busAllocation Bus allocation variables of the model
+     * @param isClosestPickUp Closest pick-up location variables of the model
+     * @param trips Trips variables of the model
+     * @throws GRBException
+     */
+    public void applyTo(GRBModel model, GRBVar[] isPickUpLocation, GRBVar[][] busAllocation,
+    GRBVar[][] isClosestPickUp, GRBVar[][][] trips) throws GRBException {
+        model.set(GRB.DoubleAttr.Start, isPickUpLocation, this.isPickUpLocation);
+        model.set(GRB.DoubleAttr.Start, busAllocation, this.busAllocation);
+        model.set(GRB.DoubleAttr.Start, isClosestPickUp, this.isClosestPickUp);
+        model.set(GRB.DoubleAttr.Start, trips, this.trips);
+    }
+}
@@ -1,24 +1,33 @@
-import java.io.IOException;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-
-import com.gurobi.gurobi.GRBException;
+import java.util.concurrent.Callable;
 
 public class Main {
 
-    public static void main(String[] args) throws IOException, GRBException {
+    public static void main(String[] args) throws Exception {
+        // Sweep points are solved 4 at a time, each with a quarter of the cores
+        try (SweepExecutor executor = new SweepExecutor(4)) {
+            run(executor);
+        } finally {
+            // The Gurobi environments are shared by all the models, so they are only disposed at the very end
+            EnvPool.disposeAll();
+        }
+    }
+
+    private static void run(SweepExecutor executor) throws Exception {
 
         // ** SIOUX FALLS ** -----------------------------------------------------------------------------------------
 
-        Integer[] nominalDemand = {
+        int[] nominalDemand = {
             60, 42, 40, 46, 38,
             50, 34, 44, 44, 52,
             48, 40, 36, 26, 30 };
-        Integer[] lowDemand = {
+        int[] lowDemand = {
             35, 39, 31, 30, 25,
             31, 23, 41, 23, 39,
             48, 32, 36, 23, 17 };
-        Integer[] highDemand = {
+        int[] highDemand = {
             109, 66, 65, 84, 65,
             84, 57, 69, 69, 93,
             92, 65, 66, 49, 50 };
@@ -33,54 +42,62 @@ public class Main {
         int busCap = 30;
         int numBus = 10;
         int size = 24;
+
+        /* types of nodes in the network:
+        1 = Residential
+        2 = Industrial
+        3 = Leisure
+        4 = Office
+        5 = Commerical */
+        int[] types = {1, 2, 3, 4, 5};
+        int[] assignment = {4, 4, 3, 3, 1, 4, 4, 4, 3, 3, 1, 4, 4, 2, 4};
+
+        // The travel-time files are read once, every run of the sweeps below shares the same network instance
+        NetworkInstance network = NetworkInstance.load(NetworkInstance.NodeRoles.SIOUX_FALLS, drivingTimesPath,
+        walkingTimesPath, shelterCapacities, nominalDemand, lowDemand, highDemand, types, assignment);
         
         double[] values = {0.0, 0.05, 0.1, 0.15, 0.2, 0.25, 0.3, 0.35, 0.4, 0.45, 0.5, 0.55, 0.6, 0.65, 0.7, 0.75, 0.8, 0.85, 0.9, 0.95, 1};
 
         // // ** SRTPL ** ------------------------------------------------------------------------------------------------
         
         // // for (int count = 0; count < 10; count++) {
-        // //     for (double parameter : values) {
-        // //         ZDRTPL.runZDRTPL(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath,
-        // //         drivingTimesPath, longestWalk, maxT, busCap, numBus, parameter, size, count);
-        // //     }
+        // //     ZDRTPL.runFullZDRTPL(network, longestWalk, maxT, busCap, numBus, values, count, executor);
         // // }
 
         // // ** RTPL ** -------------------------------------------------------------------------------------------------
         
         // // for (int count = 0; count < 10; count++) {
-        // //     RTPL.runFullRTPL(nominalDemand, highDemand, shelterCapacities, walkingTimesPath,
-        // //     drivingTimesPath, longestWalk, maxT, busCap, numBus, size, count);
+        // //     RTPL.runFullRTPL(network, longestWalk, maxT, busCap, numBus, count, executor);
         // // }
 
         // // ** RTPL SIMULATED DEMANDS ** --------------------------------------------------------------------------------
         
-        int[] columnIndices = new int[15];
+        String simulatedDemandsPath = "C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Sioux Falls\\SimulatedDemands.csv";
+        String scenarioStorePath = "C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Sioux Falls\\SimulatedDemands.bin";
 
-        for (int i = 0; i < columnIndices.length; i++) {
-            columnIndices[i] = i;
+        // The CSV file is converted once, afterwards the simulated demands are read in place from the binary file
+        if (!new File(scenarioStorePath).exists()) {
+            ScenarioStore.convertCSV(simulatedDemandsPath, scenarioStorePath, network.numDP);
         }
 
-        List<int[]> simulatedValues = helper.readColumnsFromCSV("C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Sioux Falls\\SimulatedDemands.csv", columnIndices);
-        List<Integer[]> simulatedValuesConv = new ArrayList<Integer[]>();
+        // The simulations read the network with the shelters at the first nodes
+        NetworkInstance simulationNetwork = NetworkInstance.load(NetworkInstance.NodeRoles.firstShelters(size,
+        shelterCapacities.length, nominalDemand.length), drivingTimesPath, walkingTimesPath, shelterCapacities,
+        nominalDemand, highDemand);
 
-        for (int[] demandValues : simulatedValues) {
-            Integer[] simulatedValueConv = new Integer[demandValues.length];
+        try (ScenarioStore simulatedDemands = new ScenarioStore(scenarioStorePath)) {
+            List<Callable<Double>> points = new ArrayList<Callable<Double>>();
 
-            for (int i = 0; i < demandValues.length; i++) {
-                simulatedValueConv[i] = (Integer) demandValues[i];
-            }
-            simulatedValuesConv.add(simulatedValueConv);
-        }
-
-        double[] successRates = new double[nominalDemand.length + 1];
+            for (int pess = 0; pess <= network.numDP; pess++) {
+                final int pessLevel = pess;
 
-        for (int pess = 0; pess <= nominalDemand.length; pess++) {
-            successRates[pess] = RTPL.runRTPLSim(nominalDemand, highDemand, shelterCapacities, walkingTimesPath,
-            drivingTimesPath, longestWalk, maxT, busCap, numBus, pess, size, simulatedValuesConv);
-        }
+                points.add(() -> RTPL.runRTPLSim(simulationNetwork, longestWalk, maxT, busCap, numBus, pessLevel, simulatedDemands));
+            }
+            List<Double> successRates = executor.run(points);
 
-        for (int i = 0; i < successRates.length; i++) {
-            System.out.println("Success rate for pessimism level " + i + ": " + successRates[i]);
+            for (int i = 0; i < successRates.size(); i++) {
+                System.out.println("Success rate for pessimism level " + i + ": " + successRates.get(i));
+            }
         }
 
         // ** SRTPL SIMULATED DEMANDS ** --------------------------------------------------------------------------------
@@ -88,8 +105,7 @@ public class Main {
         // double[] successRates = new double[values.length + 1];
 
         // for (int i = 0; i < values.length; i++) {
-        //     successRates[i] =  ZDRTPL.runZDRTPLSim(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath,
-        //     drivingTimesPath, longestWalk, maxT, busCap, numBus, values[i], size, simulatedValuesConv);
+        //     successRates[i] =  ZDRTPL.runZDRTPLSim(network, longestWalk, maxT, busCap, numBus, values[i], simulatedDemands);
         // }
 
         // for (int i = 0; i < values.length; i++) {
@@ -118,35 +134,15 @@ public class Main {
         //     columnIndices[i] = i;
         // }
 
-        // List<int[]> demandValuesList = helper.readColumnsFromCSV("C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Rotterdam\\Demands.csv", columnIndices);
-        // List<Integer[]> demandValuesListConv = new ArrayList<Integer[]>();
-
-        // for (int[] demandValues : demandValuesList) {
-        //     Integer[] demandValuesConv = new Integer[demandValues.length];
-
-        //     for (int i = 0; i < demandValues.length; i++) {
-        //         demandValuesConv[i] = (Integer) demandValues[i];
-        //     }
-        //     demandValuesListConv.add(demandValuesConv);
-        // }
+        // DemandMatrix demandValuesListConv = DemandMatrix.fromRows(helper.readColumnsFromCSV("C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Rotterdam\\Demands.csv", columnIndices));
 
-        // List<int[]> simulatedValues = helper.readColumnsFromCSV("C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Rotterdam\\SimulatedDemands.csv", columnIndices);
-        // List<Integer[]> simulatedValuesConv = new ArrayList<Integer[]>();
-
-        // for (int[] demandValues : simulatedValues) {
-        //     Integer[] simulatedValueConv = new Integer[demandValues.length];
-
-        //     for (int i = 0; i < demandValues.length; i++) {
-        //         simulatedValueConv[i] = (Integer) demandValues[i];
-        //     }
-        //     simulatedValuesConv.add(simulatedValueConv);
-        // }
+        // DemandMatrix simulatedValuesConv = DemandMatrix.fromRows(helper.readColumnsFromCSV("C:\\Users\\arnau\\Documents\\2023-2024\\Bsc2 Thesis\\Rotterdam\\SimulatedDemands.csv", columnIndices));
 
         // ** SRTPL ** ------------------------------------------------------------------------------------------------
 
         // for (int count = 0; count < 10; count++) {
         //     for (double parameterValue : values) {
-        //         ZDRTPL.runZDRTPL(demandValuesListConv.get(0), demandValuesListConv.get(1), demandValuesListConv.get(2), shelterCapacitiesRD, walkingTimesPathRD,
+        //         ZDRTPL.runZDRTPL(demandValuesListConv.row(0), demandValuesListConv.row(1), demandValuesListConv.row(2), shelterCapacitiesRD, walkingTimesPathRD,
         //         drivingTimesPathRD, longestWalk, maxT, busCap, numBus, parameterValue, size, count);
         //     }
         // }
@@ -154,16 +150,16 @@ public class Main {
         // ** RTPL ** -------------------------------------------------------------------------------------------------
 
         // for (int count = 0; count < 10; count++) {
-        //     RTPL.runFullRTPL(demandValuesListConv.get(0), demandValuesListConv.get(2), shelterCapacitiesRD, walkingTimesPathRD,
+        //     RTPL.runFullRTPL(demandValuesListConv.row(0), demandValuesListConv.row(2), shelterCapacitiesRD, walkingTimesPathRD,
         //     drivingTimesPathRD, longestWalk, maxT, busCap, numBus, size, count);
         // }
 
         // ** RTPL SIMULATED DEMANDS ** --------------------------------------------------------------------------------
 
-        // double[] successRates = new double[demandValuesListConv.get(0).length + 1];
+        // double[] successRates = new double[demandValuesListConv.row(0).length + 1];
 
-        // for (int pess = 0; pess <= demandValuesListConv.get(0).length; pess++) {
-        //     successRates[pess] =  RTPL.runRTPLSim(demandValuesListConv.get(0), demandValuesListConv.get(2), shelterCapacitiesRD, walkingTimesPathRD,
+        // for (int pess = 0; pess <= demandValuesListConv.row(0).length; pess++) {
+        //     successRates[pess] =  RTPL.runRTPLSim(demandValuesListConv.row(0), demandValuesListConv.row(2), shelterCapacitiesRD, walkingTimesPathRD,
         //     drivingTimesPathRD, longestWalk, maxT, busCap, numBus, pess, size, simulatedValuesConv);
         // }
 
@@ -176,7 +172,7 @@ public class Main {
         // double[] successRates = new double[values.length + 1];
 
         // for (int i = 0; i < values.length; i++) {
-        //     successRates[i] =  ZDRTPL.runZDRTPLSim(demandValuesListConv.get(0), demandValuesListConv.get(1), demandValuesListConv.get(2), shelterCapacitiesRD, walkingTimesPathRD,
+        //     successRates[i] =  ZDRTPL.runZDRTPLSim(demandValuesListConv.row(0), demandValuesListConv.row(1), demandValuesListConv.row(2), shelterCapacitiesRD, walkingTimesPathRD,
         //     drivingTimesPathRD, longestWalk, maxT, busCap, numBus, values[i], size, simulatedValuesConv);
         // }
 
@@ -0,0 +1,265 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic evacuation networks of any size, to test how the models scale beyond Sioux Falls and Rotterdam.
+ * The nodes lie in clusters (neighbourhoods) around random centres, the walking and driving times follow from the
+ * distances between the nodes, and the shelters are the first nodes of the network, as in the Rotterdam City network.
+ * The demand values are drawn in the same way as helper.generateDemandValues and the types per cluster, so that
+ * neighbouring demand points tend to have the same type. A generator with the same parameters and seed always gives
+ * the same network
+ *
+ * @author 562606ad
+ */
+public class NetworkGenerator {
+    // Average node density of the Rotterdam City network, in nodes per square km
+    public static final double NODES_PER_KM2 = 1.2;
+    public static final double CLUSTER_RADIUS_KM = 0.8;
+    // Roads are longer than straight lines
+    public static final double DETOUR = 1.3;
+    public static final double WALKING_SECONDS_PER_KM = 720;
+    public static final double DRIVING_SECONDS_PER_KM = 120;
+    public static final int DRIVING_OVERHEAD_SECONDS = 60;
+    public static final int NUM_TYPES = 5;
+
+    public int size;
+    public int numShelters;
+    public int numClusters;
+    public long seed;
+
+    public double[] x;
+    public double[] y;
+    public int[] clusterOf;
+    public int[][] walkingSeconds;
+    public int[][] drivingSeconds;
+    public int[] shelterCapacities;
+    public int[] nominalDemand;
+    public int[] lowDemand;
+    public int[] highDemand;
+    public int[] types;
+    public int[] assignment;
+
+    /**
+     * Constructor for a generated network with one shelter per 15 nodes and one cluster per 25 nodes
+     * @param size Number of nodes in the network
+     * @param seed Seed of the generator
+     */
+    public NetworkGenerator(int size, long seed) {
+        this(size, Math.max(4, size / 15), Math.max(2, size / 25), seed);
+    }
+
+    /**
+     * Constructor for a generated network
+     * @param size Number of nodes in the network
+     * @param numShelters Number of shelters, the first numShelters nodes
+     * @param numClusters Number of clusters of nodes
+     * @param seed Seed of the generator
+     */
+    public NetworkGenerator(int size, int numShelters, int numClusters, long seed) {
+        this.size = size;
+        this.numShelters = numShelters;
+        this.numClusters = numClusters;
+        this.seed = seed;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int numDP = size - numShelters;
+
+        // Cluster centres spread over a square with the density of the Rotterdam City network
+        double side = Math.sqrt(size / NODES_PER_KM2);
+        double[] centreX = new double[numClusters];
+        double[] centreY = new double[numClusters];
+        int[] clusterType = new int[numClusters];
+
+        for (int c = 0; c < numClusters; c++) {
+            centreX[c] = random.nextDouble() * side;
+            centreY[c] = random.nextDouble() * side;
+            clusterType[c] = 1 + random.nextInt(NUM_TYPES);
+        }
+
+        this.x = new double[size];
+        this.y = new double[size];
+        this.clusterOf = new int[size];
+
+        for (int n = 0; n < size; n++) {
+            clusterOf[n] = random.nextInt(numClusters);
+            x[n] = centreX[clusterOf[n]] + gaussian(random) * CLUSTER_RADIUS_KM;
+            y[n] = centreY[clusterOf[n]] + gaussian(random) * CLUSTER_RADIUS_KM;
+        }
+
+        this.walkingSeconds = new int[size][size];
+        this.drivingSeconds = new int[size][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    double distance = Math.hypot(x[i] - x[j], y[i] - y[j]) * DETOUR;
+
+                    walkingSeconds[i][j] = (int) Math.round(distance * WALKING_SECONDS_PER_KM);
+                    drivingSeconds[i][j] = (int) Math.round(distance * DRIVING_SECONDS_PER_KM) + DRIVING_OVERHEAD_SECONDS;
+                }
+            }
+        }
+
+        // Demand in the style of helper.generateDemandValues, types mostly those of the cluster
+        this.nominalDemand = new int[numDP];
+        this.lowDemand = new int[numDP];
+        this.highDemand = new int[numDP];
+        this.types = new int[NUM_TYPES];
+        this.assignment = new int[numDP];
+        long totalHighDemand = 0;
+
+        for (int t = 0; t < NUM_TYPES; t++) {
+            types[t] = t + 1;
+        }
+        for (int i = 0; i < numDP; i++) {
+            nominalDemand[i] = random.nextInt(60 - 26 + 1) + 26;
+            lowDemand[i] = (int) (nominalDemand[i] * (random.nextDouble() * 0.5 + 0.5));
+            highDemand[i] = (int) (nominalDemand[i] * (random.nextDouble() * 0.5 + 1.5));
+            assignment[i] = random.nextDouble() < 0.7 ? clusterType[clusterOf[numShelters + i]] : 1 + random.nextInt(NUM_TYPES);
+            totalHighDemand += highDemand[i];
+        }
+
+        // The shelters can hold 10% more than the total high demand, split over the shelters at random
+        this.shelterCapacities = new int[numShelters];
+        double[] weight = new double[numShelters];
+        double totalWeight = 0;
+
+        for (int j = 0; j < numShelters; j++) {
+            weight[j] = 0.5 + random.nextDouble();
+            totalWeight += weight[j];
+        }
+        for (int j = 0; j < numShelters; j++) {
+            shelterCapacities[j] = (int) Math.ceil(1.1 * totalHighDemand * weight[j] / totalWeight);
+        }
+    }
+
+    /**
+     * Get the roles of the nodes of the generated network
+     * @return Roles with the shelters at the first nodes
+     */
+    public NetworkInstance.NodeRoles roles() {
+        return NetworkInstance.NodeRoles.firstShelters(size, numShelters);
+    }
+
+    /**
+     * Get the path of a file of the generated network, the name contains the parameters and the seed of the generator,
+     * so networks with different parameters or seeds do not share files
+     * @param directory Directory of the network files
+     * @param kind Kind of file, such as "Driving Times"
+     * @return Path of the file
+     */
+    public String path(String directory, String kind) {
+        return directory + File.separator + kind + " Synthetic " + size + " Shelters " + numShelters + " Clusters "
+        + numClusters + " Seed " + seed + ".csv";
+    }
+
+    /**
+     * Writes the network in the CSV layout of the Sioux Falls network: the walking and driving times as lines of origin,
+     * destination and seconds without a header, the coordinates of the nodes, the demand values and types of the demand
+     * points, and the capacities of the shelters. Files that already exist are not written again, they hold the same
+     * network as their names contain the parameters and the seed
+     * @param directory Directory to write the files to, created if it does not exist
+     * @throws IOException
+     */
+    public void write(String directory) throws IOException {
+        new File(directory).mkdirs();
+
+        writeTimes(path(directory, "Walking Times"), walkingSeconds);
+        writeTimes(path(directory, "Driving Times"), drivingSeconds);
+
+        if (!new File(path(directory, "Coordinates")).exists()) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(path(directory, "Coordinates")))) {
+                writer.write("Node,X,Y,Cluster\n");
+
+                for (int n = 0; n < size; n++) {
+                    writer.write((n + 1) + "," + x[n] + "," + y[n] + "," + (clusterOf[n] + 1) + "\n");
+                }
+            }
+        }
+
+        if (!new File(path(directory, "Demands")).exists()) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(path(directory, "Demands")))) {
+                writer.write("Node");
+
+                for (int i = 0; i < nominalDemand.length; i++) {
+                    writer.write("," + (numShelters + i + 1));
+                }
+                writer.write("\n");
+                writeRow(writer, "Nominal", nominalDemand);
+                writeRow(writer, "Low", lowDemand);
+                writeRow(writer, "High", highDemand);
+                writeRow(writer, "Type", assignment);
+            }
+        }
+
+        if (!new File(path(directory, "Shelters")).exists()) {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(path(directory, "Shelters")))) {
+                writer.write("Node,Capacity\n");
+
+                for (int j = 0; j < numShelters; j++) {
+                    writer.write((j + 1) + "," + shelterCapacities[j] + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the network and loads it back as a network instance, through the same path as the real networks
+     * @param directory Directory of the network files
+     * @return Network instance of the generated network
+     * @throws IOException
+     */
+    public NetworkInstance load(String directory) throws IOException {
+        write(directory);
+
+        return NetworkInstance.load(roles(), path(directory, "Driving Times"), path(directory, "Walking Times"),
+        shelterCapacities, nominalDemand, lowDemand, highDemand, types, assignment);
+    }
+
+    /**
+     * Writes a travel-time matrix as lines of origin, destination and seconds, if the file does not exist yet
+     * @param filePath Path to the CSV file
+     * @param seconds Travel times between each pair of nodes in seconds
+     * @throws IOException
+     */
+    private static void writeTimes(String filePath, int[][] seconds) throws IOException {
+        if (new File(filePath).exists()) {
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath), 1 << 20)) {
+            for (int i = 0; i < seconds.length; i++) {
+                for (int j = 0; j < seconds.length; j++) {
+                    writer.write((i + 1) + "," + (j + 1) + "," + seconds[i][j] + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a labelled row of values
+     * @param writer Writer of the CSV file
+     * @param label Label in the first column
+     * @param values Values of the row
+     * @throws IOException
+     */
+    private static void writeRow(BufferedWriter writer, String label, int[] values) throws IOException {
+        writer.write(label);
+
+        for (int value : values) {
+            writer.write("," + value);
+        }
+        writer.write("\n");
+    }
+
+    /**
+     * Standard normal value with the Box-Muller transform
+     * @param random Random number generator
+     * @return Standard normal value
+     */
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
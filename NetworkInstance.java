@@ -0,0 +1,390 @@
+import java.util.Arrays;
+
+/**
+ * Immutable instance of an evacuation network: the demand points and shelters among the nodes, the driving times from
+ * the demand points to the shelters, the walking times between the demand points, the shelter capacities, the demand
+ * values and the types of the demand points. The travel-time files are read once when the instance is loaded, after
+ * which the same instance can be shared by every model and every run of a sweep, also from several threads. All arrays
+ * are copied on the way in and on the way out, so no model can change the instance of another one
+ *
+ * @author 562606ad
+ */
+public class NetworkInstance {
+    /**
+     * Roles of the nodes of a network: which nodes are shelters, which are demand points and which are neither, such
+     * as the intersections of the Sioux Falls network. Demand points and shelters are kept in increasing node order
+     */
+    public static class NodeRoles {
+        /**
+         * Sioux Falls network: 24 nodes, shelters at nodes 12, 19, 20 and 21, and no demand at nodes 13, 14, 18, 22
+         * and 23
+         */
+        public static final NodeRoles SIOUX_FALLS = of(24, new int[] {12, 19, 20, 21}, new int[] {13, 14, 18, 22, 23});
+
+        public final int size;
+        private final int[] demandPoints;
+        private final int[] shelters;
+
+        /**
+         * Constructor for the roles of the nodes of a network
+         * @param size Number of nodes in the network
+         * @param demandPoints Nodes that are demand points
+         * @param shelters Nodes that are shelters
+         * @throws IllegalArgumentException If a node is outside the network or has both roles
+         */
+        public NodeRoles(int size, int[] demandPoints, int[] shelters) {
+            boolean[] used = new boolean[size];
+
+            for (int[] nodes : new int[][] {demandPoints, shelters}) {
+                for (int node : nodes) {
+                    if (node < 0 || node >= size) {
+                        throw new IllegalArgumentException("Node " + node + " is not in a network of " + size + " nodes");
+                    }
+                    if (used[node]) {
+                        throw new IllegalArgumentException("Node " + node + " has more than one role");
+                    }
+                    used[node] = true;
+                }
+            }
+            this.size = size;
+            this.demandPoints = demandPoints.clone();
+            this.shelters = shelters.clone();
+            Arrays.sort(this.demandPoints);
+            Arrays.sort(this.shelters);
+        }
+
+        /**
+         * Creates the roles of a network in which every node that is not a shelter and not excluded is a demand point
+         * @param size Number of nodes in the network
+         * @param shelters Nodes that are shelters
+         * @param excluded Nodes that are neither demand points nor shelters
+         * @return Roles of the nodes
+         */
+        public static NodeRoles of(int size, int[] shelters, int[] excluded) {
+            boolean[] other = new boolean[size];
+
+            for (int node : shelters) {
+                other[node] = true;
+            }
+            for (int node : excluded) {
+                other[node] = true;
+            }
+            int[] demandPoints = new int[size];
+            int numDP = 0;
+
+            for (int node = 0; node < size; node++) {
+                if (!other[node]) {
+                    demandPoints[numDP++] = node;
+                }
+            }
+            return new NodeRoles(size, Arrays.copyOf(demandPoints, numDP), shelters);
+        }
+
+        /**
+         * Creates the roles of a network with the shelters at the first nodes and the demand points at all other nodes,
+         * such as the Rotterdam City network
+         * @param size Number of nodes in the network
+         * @param numShelters Number of shelters
+         * @return Roles of the nodes
+         */
+        public static NodeRoles firstShelters(int size, int numShelters) {
+            int[] shelters = new int[numShelters];
+
+            for (int j = 0; j < numShelters; j++) {
+                shelters[j] = j;
+            }
+            return of(size, shelters, new int[0]);
+        }
+
+        /**
+         * Creates the roles of a network with the shelters at the first nodes and the given number of demand points at
+         * the nodes right after them, the nodes after those are neither
+         * @param size Number of nodes in the network
+         * @param numShelters Number of shelters
+         * @param numDP Number of demand points
+         * @return Roles of the nodes
+         */
+        public static NodeRoles firstShelters(int size, int numShelters, int numDP) {
+            int[] shelters = new int[numShelters];
+            int[] demandPoints = new int[numDP];
+
+            for (int j = 0; j < numShelters; j++) {
+                shelters[j] = j;
+            }
+            for (int i = 0; i < numDP; i++) {
+                demandPoints[i] = numShelters + i;
+            }
+            return new NodeRoles(size, demandPoints, shelters);
+        }
+
+        /**
+         * Get the demand points
+         * @return Nodes that are demand points, in increasing order
+         */
+        public int[] getDemandPoints() {
+            return demandPoints.clone();
+        }
+
+        /**
+         * Get the shelters
+         * @return Nodes that are shelters, in increasing order
+         */
+        public int[] getShelters() {
+            return shelters.clone();
+        }
+
+        /**
+         * Get the times from the demand points to the shelters
+         * @param timesMatrix Matrix containing the times between each pair of nodes
+         * @return Matrix containing the times from each demand point to each shelter
+         */
+        public int[][] timesToShelters(int[][] timesMatrix) {
+            return submatrix(timesMatrix, demandPoints, shelters);
+        }
+
+        /**
+         * Get the times between the demand points
+         * @param timesMatrix Matrix containing the times between each pair of nodes
+         * @return Matrix containing the times from each demand point to each demand point
+         */
+        public int[][] timesBetweenDemandPoints(int[][] timesMatrix) {
+            return submatrix(timesMatrix, demandPoints, demandPoints);
+        }
+
+        /**
+         * Get the rows and columns of a subset of the nodes from a matrix
+         * @param timesMatrix Matrix containing the times between each pair of nodes
+         * @param rows Nodes of the rows
+         * @param columns Nodes of the columns
+         * @return Matrix containing the times from each node of rows to each node of columns
+         */
+        private int[][] submatrix(int[][] timesMatrix, int[] rows, int[] columns) {
+            if (timesMatrix.length != size) {
+                throw new IllegalArgumentException("Matrix of " + timesMatrix.length + " nodes for a network of " + size + " nodes");
+            }
+            int[][] submatrix = new int[rows.length][columns.length];
+
+            for (int i = 0; i < rows.length; i++) {
+                for (int j = 0; j < columns.length; j++) {
+                    submatrix[i][j] = timesMatrix[rows[i]][columns[j]];
+                }
+            }
+            return submatrix;
+        }
+    }
+
+    public final int numDP;
+    public final int numSh;
+
+    private final NodeRoles roles;
+    private final int[][] timesDPtoShelters;
+    private final int[][] walkingTimes;
+    private final int[] shelterCapacities;
+    private final int[] nominalDemand;
+    private final int[] lowDemand;
+    private final int[] highDemand;
+    private final int[] types;
+    private final int[] assignment;
+
+    /**
+     * Constructor for a network instance from the travel times between all nodes
+     * @param roles Roles of the nodes
+     * @param drivingTimesMatrix Driving times between each pair of nodes
+     * @param walkingTimesMatrix Walking times between each pair of nodes
+     * @param shelterCapacities Array of shelter capacities, in the order of the shelter nodes
+     * @param nominalDemand Array of nominal demand values, in the order of the demand point nodes
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param types Array containing the types of the demand points
+     * @param assignment Array containing the type of each demand point
+     * @throws IllegalArgumentException If the arrays do not match the number of demand points and shelters
+     */
+    public NetworkInstance(NodeRoles roles, int[][] drivingTimesMatrix, int[][] walkingTimesMatrix,
+    int[] shelterCapacities, int[] nominalDemand, int[] lowDemand, int[] highDemand, int[] types, int[] assignment) {
+        this.roles = roles;
+        this.numDP = roles.demandPoints.length;
+        this.numSh = roles.shelters.length;
+
+        check("shelter capacities", shelterCapacities, numSh);
+        check("nominal demand values", nominalDemand, numDP);
+        check("low demand values", lowDemand, numDP);
+        check("high demand values", highDemand, numDP);
+        check("type assignments", assignment, numDP);
+
+        this.timesDPtoShelters = roles.timesToShelters(drivingTimesMatrix);
+        this.walkingTimes = roles.timesBetweenDemandPoints(walkingTimesMatrix);
+        this.shelterCapacities = shelterCapacities.clone();
+        this.nominalDemand = nominalDemand.clone();
+        this.lowDemand = lowDemand.clone();
+        this.highDemand = highDemand.clone();
+        this.types = types.clone();
+        this.assignment = assignment.clone();
+    }
+
+    /**
+     * Constructor for a network instance without types, for the RTPL model. The RTPL model only has upward deviations
+     * of the demand, so the low demand is the nominal demand
+     * @param roles Roles of the nodes
+     * @param drivingTimesMatrix Driving times between each pair of nodes
+     * @param walkingTimesMatrix Walking times between each pair of nodes
+     * @param shelterCapacities Array of shelter capacities, in the order of the shelter nodes
+     * @param nominalDemand Array of nominal demand values, in the order of the demand point nodes
+     * @param highDemand Array of high demand values
+     */
+    public NetworkInstance(NodeRoles roles, int[][] drivingTimesMatrix, int[][] walkingTimesMatrix,
+    int[] shelterCapacities, int[] nominalDemand, int[] highDemand) {
+        this(roles, drivingTimesMatrix, walkingTimesMatrix, shelterCapacities, nominalDemand, nominalDemand, highDemand,
+        new int[0], new int[roles.demandPoints.length]);
+    }
+
+    /**
+     * Loads a network instance, reading each travel-time file once
+     * @param roles Roles of the nodes
+     * @param drivingTimesPath Path to the driving times file
+     * @param walkingTimesPath Path to the walking times file
+     * @param shelterCapacities Array of shelter capacities, in the order of the shelter nodes
+     * @param nominalDemand Array of nominal demand values, in the order of the demand point nodes
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param types Array containing the types of the demand points
+     * @param assignment Array containing the type of each demand point
+     * @return Network instance
+     */
+    public static NetworkInstance load(NodeRoles roles, String drivingTimesPath, String walkingTimesPath,
+    int[] shelterCapacities, int[] nominalDemand, int[] lowDemand, int[] highDemand, int[] types, int[] assignment) {
+        return new NetworkInstance(roles, helper.getTimesMatrix(drivingTimesPath, roles.size),
+        helper.getTimesMatrix(walkingTimesPath, roles.size), shelterCapacities, nominalDemand, lowDemand, highDemand,
+        types, assignment);
+    }
+
+    /**
+     * Loads a network instance without types for the RTPL model, reading each travel-time file once
+     * @param roles Roles of the nodes
+     * @param drivingTimesPath Path to the driving times file
+     * @param walkingTimesPath Path to the walking times file
+     * @param shelterCapacities Array of shelter capacities, in the order of the shelter nodes
+     * @param nominalDemand Array of nominal demand values, in the order of the demand point nodes
+     * @param highDemand Array of high demand values
+     * @return Network instance
+     */
+    public static NetworkInstance load(NodeRoles roles, String drivingTimesPath, String walkingTimesPath,
+    int[] shelterCapacities, int[] nominalDemand, int[] highDemand) {
+        return new NetworkInstance(roles, helper.getTimesMatrix(drivingTimesPath, roles.size),
+        helper.getTimesMatrix(walkingTimesPath, roles.size), shelterCapacities, nominalDemand, highDemand);
+    }
+
+    /**
+     * Get the roles of the nodes
+     * @return Roles of the nodes
+     */
+    public NodeRoles getRoles() {
+        return roles;
+    }
+
+    /**
+     * Get the driving times from the demand points to the shelters
+     * @return Copy of the matrix containing the times from each demand point to each shelter
+     */
+    public int[][] getTimesDPToShelters() {
+        return copy(timesDPtoShelters);
+    }
+
+    /**
+     * Get the walking times between the demand points
+     * @return Copy of the matrix containing the walking times from each demand point to each demand point
+     */
+    public int[][] getWalkingTimes() {
+        return copy(walkingTimes);
+    }
+
+    /**
+     * Get the shelter capacities
+     * @return Copy of the array of shelter capacities
+     */
+    public int[] getShelterCapacities() {
+        return shelterCapacities.clone();
+    }
+
+    /**
+     * Get the nominal demand
+     * @return Copy of the array of nominal demand values
+     */
+    public int[] getNominalDemand() {
+        return nominalDemand.clone();
+    }
+
+    /**
+     * Get the low demand
+     * @return Copy of the array of low demand values
+     */
+    public int[] getLowDemand() {
+        return lowDemand.clone();
+    }
+
+    /**
+     * Get the high demand
+     * @return Copy of the array of high demand values
+     */
+    public int[] getHighDemand() {
+        return highDemand.clone();
+    }
+
+    /**
+     * Get the types of the demand points
+     * @return Copy of the array containing the types of the demand points
+     */
+    public int[] getTypes() {
+        return types.clone();
+    }
+
+    /**
+     * Get the type of each demand point
+     * @return Copy of the array containing the type of each demand point
+     */
+    public int[] getAssignment() {
+        return assignment.clone();
+    }
+
+    /**
+     * Get the demand vectors of the RTPL model
+     * @return Demand matrix with the nominal and high demand vectors
+     */
+    public DemandMatrix getNominalHighDemand() {
+        return DemandMatrix.of(nominalDemand, highDemand);
+    }
+
+    /**
+     * Get the demand vectors of the ZDRTPL model
+     * @return Demand matrix with the nominal, low and high demand vectors
+     */
+    public DemandMatrix getDemandValues() {
+        return DemandMatrix.of(nominalDemand, lowDemand, highDemand);
+    }
+
+    /**
+     * Checks the length of an array
+     * @param name Name of the array, for the error message
+     * @param array Array to check
+     * @param length Expected length
+     * @throws IllegalArgumentException If the array does not have the expected length
+     */
+    private static void check(String name, int[] array, int length) {
+        if (array.length != length) {
+            throw new IllegalArgumentException("Expected " + length + " " + name + ", got " + array.length);
+        }
+    }
+
+    /**
+     * Deep copy of a matrix
+     * @param matrix Matrix to copy
+     * @return Copy of the matrix
+     */
+    private static int[][] copy(int[][] matrix) {
+        int[][] copy = new int[matrix.length][];
+
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Preprocessing of the pick-up locations of the RTPL and ZDRTPL models from the walking times. A demand point can only
+ * walk to a pick-up location within the longest walk (constraint 11), so the models only need assignment variables and
+ * constraints for those pairs. Optionally, pick-up locations that are dominated by another one are no candidates at all:
+ * q dominates p if every demand point within walking distance of p is also within walking distance of q and the
+ * driving time from q to every shelter is at most the driving time from p
+ *
+ * @author 562606ad
+ */
+public class PickUpCandidates {
+    public int numDP;
+    public int numCandidates;
+    public int numPairs;
+
+    public boolean[] isCandidate;
+    public boolean[][] canWalk;
+
+    /**
+     * Constructor for the pick-up candidates of a network
+     * @param walkingTimes Walking times between demand points, indexed [i][p]
+     * @param times Travel times between demand points and shelters
+     * @param longestWalk Maximum walking distance
+     * @param pruneDominated Whether dominated pick-up locations are removed. With the closest pick-up location
+     * constraints this is a heuristic: opening q instead of p can pull demand points away from other pick-up locations,
+     * so in rare cases the optimal plan is lost
+     */
+    public PickUpCandidates(int[][] walkingTimes, int[][] times, int longestWalk, boolean pruneDominated) {
+        this.numDP = walkingTimes.length;
+        this.isCandidate = new boolean[numDP];
+        this.canWalk = new boolean[numDP][numDP];
+
+        boolean[][] covers = new boolean[numDP][numDP];
+
+        for (int p = 0; p < numDP; p++) {
+            for (int i = 0; i < numDP; i++) {
+                covers[p][i] = walkingTimes[i][p] <= longestWalk;
+            }
+        }
+
+        for (int p = 0; p < numDP; p++) {
+            isCandidate[p] = true;
+
+            for (int q = 0; q < numDP && pruneDominated && isCandidate[p]; q++) {
+                if (q != p && dominates(q, p, covers, times)) {
+                    isCandidate[p] = false;
+                }
+            }
+            if (isCandidate[p]) {
+                numCandidates++;
+
+                for (int i = 0; i < numDP; i++) {
+                    canWalk[p][i] = covers[p][i];
+
+                    if (canWalk[p][i]) {
+                        numPairs++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a pick-up location dominates another one. Of two equivalent pick-up locations the one with the lowest
+     * index dominates, so that exactly one of them is kept
+     * @param q Pick-up location that may dominate
+     * @param p Pick-up location that may be dominated
+     * @param covers Whether a pick-up location is within walking distance of a demand point, indexed [p][i]
+     * @param times Travel times between demand points and shelters
+     * @return True if q dominates p
+     */
+    private boolean dominates(int q, int p, boolean[][] covers, int[][] times) {
+        boolean strict = q < p;
+
+        for (int i = 0; i < numDP; i++) {
+            if (covers[p][i] && !covers[q][i]) {
+                return false;
+            }
+            strict |= covers[q][i] && !covers[p][i];
+        }
+        for (int j = 0; j < times[p].length; j++) {
+            if (times[q][j] > times[p][j]) {
+                return false;
+            }
+            strict |= times[q][j] < times[p][j];
+        }
+        return strict;
+    }
+
+    /**
+     * Get a summary of how much smaller the model is than without preprocessing
+     * @return Number of pick-up candidates and of assignment variables, with and without preprocessing
+     */
+    public String summary() {
+        long dense = (long) numDP * numDP;
+
+        return String.format("Pick-up candidates: %d of %d, assignment variables and constraints: %d of %d (%.1f%%)",
+        numCandidates, numDP, numPairs, dense, 100.0 * numPairs / dense);
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Monte Carlo evaluation of a plan of the RTPL or ZDRTPL model against simulated demand. A sample fails if the demand
+ * that walks to some pick-up location is larger than the capacity of the trips from that pick-up location. The plan is
+ * stored as the demand points of each pick-up location, in consecutive ranges of one primitive array, and the samples
+ * as one primitive array with the demand of sample k at index k * numDP + i, so the samples are split over the cores
+ * without any boxing. Samples can also be read in place from a memory-mapped ScenarioStore
+ *
+ * @author 562606ad
+ */
+public class PlanEvaluator {
+    /**
+     * Number of samples that one task evaluates
+     */
+    public static final int CHUNK = 4096;
+
+    public int numDP;
+    public int numPickUps;
+
+    public int[] pickUps;
+    public int[] clusterStart;
+    public int[] members;
+    public double[] capacity;
+
+    /**
+     * Result of an evaluation, results of consecutive batches of samples can be added up
+     */
+    public static class Result {
+        public long samples;
+        public long failures;
+        public long[] pickUpFailures;
+
+        /**
+         * Constructor for an empty result
+         * @param numDP Number of demand points
+         */
+        public Result(int numDP) {
+            this.pickUpFailures = new long[numDP];
+        }
+
+        /**
+         * Adds the counts of another result to this one
+         * @param other Result of other samples of the same plan
+         * @return This result
+         */
+        public Result add(Result other) {
+            samples += other.samples;
+            failures += other.failures;
+
+            for (int p = 0; p < pickUpFailures.length; p++) {
+                pickUpFailures[p] += other.pickUpFailures[p];
+            }
+            return this;
+        }
+
+        /**
+         * Get the success rate of the samples
+         * @return Percentage of the samples without excess demand at any pick-up location
+         */
+        public double successRate() {
+            return (1 - (failures / (double) samples)) * 100;
+        }
+    }
+
+    /**
+     * Constructor for the evaluator of a plan
+     * @param clusterOf Pick-up location that each demand point walks to
+     * @param capacity Capacity of the trips from each demand point, 0 if it is not a pick-up location
+     */
+    public PlanEvaluator(int[] clusterOf, double[] capacity) {
+        this.numDP = clusterOf.length;
+        this.clusterStart = new int[numDP + 1];
+        this.members = new int[numDP];
+
+        int[] clusterSize = new int[numDP];
+
+        for (int i = 0; i < numDP; i++) {
+            clusterSize[clusterOf[i]]++;
+        }
+        for (int p = 0; p < numDP; p++) {
+            if (clusterSize[p] > 0) {
+                numPickUps++;
+            }
+        }
+
+        this.pickUps = new int[numPickUps];
+        this.capacity = new double[numPickUps];
+        int c = 0;
+
+        for (int p = 0; p < numDP; p++) {
+            if (clusterSize[p] > 0) {
+                pickUps[c] = p;
+                this.capacity[c] = capacity[p];
+                clusterStart[c + 1] = clusterStart[c] + clusterSize[p];
+                c++;
+            }
+        }
+
+        int[] next = clusterStart.clone();
+        int[] clusterIndex = new int[numDP];
+
+        for (c = 0; c < numPickUps; c++) {
+            clusterIndex[pickUps[c]] = c;
+        }
+        for (int i = 0; i < numDP; i++) {
+            members[next[clusterIndex[clusterOf[i]]]++] = i;
+        }
+    }
+
+    /**
+     * Constructor for the evaluator of a solution of the RTPL or ZDRTPL model
+     * @param plan Snapshot of the solution
+     */
+    public PlanEvaluator(PlanSnapshot plan) {
+        this(plan.clusterOf, plan.capacity);
+    }
+
+    /**
+     * Evaluates the plan against samples in a primitive array, the samples are split over the cores
+     * @param samples Demand of sample k at demand point i at index k * numDP + i
+     * @param numSamples Number of samples in the array
+     * @param countAllPickUps If false, a sample stops at its first failing pick-up location, which is then the only
+     * one counted in the failures per pick-up location
+     * @return Number of failing samples, in total and per pick-up location
+     */
+    public Result evaluate(int[] samples, int numSamples, boolean countAllPickUps) {
+        int numChunks = (numSamples + CHUNK - 1) / CHUNK;
+
+        return IntStream.range(0, numChunks).parallel()
+        .mapToObj(chunk -> evaluate(samples, chunk * CHUNK, Math.min(numSamples, (chunk + 1) * CHUNK), countAllPickUps))
+        .reduce(Result::add).orElse(new Result(numDP));
+    }
+
+    /**
+     * Evaluates the plan against a demand matrix of samples, such as the simulated demands read from a file, without
+     * copying them
+     * @param samples Demand matrix with one sample per scenario
+     * @param countAllPickUps If false, a sample stops at its first failing pick-up location
+     * @return Number of failing samples, in total and per pick-up location
+     */
+    public Result evaluate(DemandMatrix samples, boolean countAllPickUps) {
+        return evaluate(samples.values, samples.size(), countAllPickUps);
+    }
+
+    /**
+     * Evaluates the plan against the samples of a scenario file, the samples are read in place from the mapped file
+     * and split over the cores
+     * @param store Scenario file with the same number of demand points as the plan
+     * @param countAllPickUps If false, a sample stops at its first failing pick-up location
+     * @return Number of failing samples, in total and per pick-up location
+     */
+    public Result evaluate(ScenarioStore store, boolean countAllPickUps) {
+        long numChunks = (store.numSamples + CHUNK - 1) / CHUNK;
+
+        return LongStream.range(0, numChunks).parallel()
+        .mapToObj(chunk -> evaluate(store, chunk * CHUNK, Math.min(store.numSamples, (chunk + 1) * CHUNK), countAllPickUps))
+        .reduce(Result::add).orElse(new Result(numDP));
+    }
+
+    /**
+     * Evaluates the plan against samples drawn by a sampler. Every task draws and evaluates its own batch of samples,
+     * so only one batch per core is in memory at any time, and the result does not depend on the number of cores
+     * @param sampler Sampler of the demand scenarios
+     * @param numSamples Number of samples to draw
+     * @param countAllPickUps If false, a sample stops at its first failing pick-up location
+     * @return Number of failing samples, in total and per pick-up location
+     */
+    public Result evaluate(ScenarioSampler sampler, long numSamples, boolean countAllPickUps) {
+        long numChunks = (numSamples + CHUNK - 1) / CHUNK;
+
+        return LongStream.range(0, numChunks).parallel()
+        .mapToObj(chunk -> {
+            int count = (int) Math.min(CHUNK, numSamples - chunk * CHUNK);
+            int[] batch = new int[count * numDP];
+
+            for (int k = 0; k < count; k++) {
+                sampler.sample(chunk * CHUNK + k, batch, k * numDP);
+            }
+            return evaluate(batch, 0, count, countAllPickUps);
+        })
+        .reduce(Result::add).orElse(new Result(numDP));
+    }
+
+    /**
+     * Evaluates the plan against a range of the samples of a scenario file on the current thread
+     * @param store Scenario file
+     * @param from First sample of the range
+     * @param to Sample after the last sample of the range
+     * @param countAllPickUps If false, a sample stops at its first failing pick-up location
+     * @return Number of failing samples, in total and per pick-up location
+     */
+    private Result evaluate(ScenarioStore store, long from, long to, boolean countAllPickUps) {
+        Result result = new Result(numDP);
+        result.samples = to - from;
+
+        for (long k = from; k < to; k++) {
+            boolean fail = false;
+
+            for (int c = 0; c < numPickUps; c++) {
+                long accumulated = 0;
+
+                for (int m = clusterStart[c]; m < clusterStart[c + 1]; m++) {
+                    accumulated += store.demand(k, members[m]);
+                }
+                if (accumulated > capacity[c]) {
+                    fail = true;
+                    result.pickUpFailures[pickUps[c]]++;
+
+                    if (!countAllPickUps) {
+                        break;
+                    }
+                }
+            }
+            if (fail) {
+                result.failures++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the plan against a range of samples on the current thread
+     * @param samples Demand of sample k at demand point i at index k * numDP + i
+     * @param from First sample of the range
+     * @param to Sample after the last sample of the range
+     * @param countAllPickUps If false, a sample stops at its first failing pick-up location
+     * @return Number of failing samples, in total and per pick-up location
+     */
+    private Result evaluate(int[] samples, int from, int to, boolean countAllPickUps) {
+        Result result = new Result(numDP);
+        result.samples = to - from;
+
+        for (int k = from; k < to; k++) {
+            int offset = k * numDP;
+            boolean fail = false;
+
+            for (int c = 0; c < numPickUps; c++) {
+                long accumulated = 0;
+
+                for (int m = clusterStart[c]; m < clusterStart[c + 1]; m++) {
+                    accumulated += samples[offset + members[m]];
+                }
+                if (accumulated > capacity[c]) {
+                    fail = true;
+                    result.pickUpFailures[pickUps[c]]++;
+
+                    if (!countAllPickUps) {
+                        break;
+                    }
+                }
+            }
+            if (fail) {
+                result.failures++;
+            }
+        }
+        return result;
+    }
+}
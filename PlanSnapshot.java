@@ -0,0 +1,112 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+
+/**
+ * Immutable snapshot of a solution of the RTPL or ZDRTPL model: the pick-up locations, the pick-up location of each
+ * demand point, the bus allocation, the trips, the capacity at each pick-up location and the objective value. It is
+ * read with one attribute query per family of variables, after which the model is no longer needed, so the
+ * worst-case demand oracles, the simulations and the output can work on the plan after the model has been changed
+ * or disposed. The arrays are shared with the consumers and must not be changed
+ *
+ * @author 562606ad
+ */
+public final class PlanSnapshot {
+    public final int numDP;
+    public final double objective;
+
+    public final double[] isPickUpLocation;
+    public final int[] pickUps;
+    public final double[][] busAllocation;
+    public final double[][] isClosestPickUp;
+    public final int[] clusterOf;
+    public final double[][][] trips;
+    public final double[] capacity;
+    public final double[] accumulatedDemand;
+
+    /**
+     * Constructor for a snapshot
+     * @param objective Objective value, the total driving time
+     * @param isPickUpLocation 1 if the demand point is a pick-up location, 0 otherwise
+     * @param busAllocation 1 if bus b is allocated to demand point i, indexed [b][i], or the number of buses at each
+     * demand point in a single layer b = 0 for the bus-aggregated model
+     * @param isClosestPickUp 1 if demand point i walks to pick-up location p, indexed [p][i]
+     * @param trips Number of trips of bus b from demand point i to shelter j, indexed [b][i][j], or of all buses
+     * together in a single layer b = 0 for the bus-aggregated model
+     * @param accumulatedDemand Accumulated demand of each pick-up location for the last selected demand vector
+     * @param busCap Capacity of the buses
+     */
+    public PlanSnapshot(double objective, double[] isPickUpLocation, double[][] busAllocation,
+    double[][] isClosestPickUp, double[][][] trips, double[] accumulatedDemand, int busCap) {
+        this.numDP = isPickUpLocation.length;
+        this.objective = objective;
+        this.isPickUpLocation = isPickUpLocation;
+        this.busAllocation = busAllocation;
+        this.isClosestPickUp = isClosestPickUp;
+        this.trips = trips;
+        this.accumulatedDemand = accumulatedDemand;
+
+        this.clusterOf = new int[numDP];
+        this.capacity = new double[numDP];
+        int numPickUps = 0;
+
+        for (int p = 0; p < numDP; p++) {
+            if (isPickUpLocation[p] > 0.5) {
+                numPickUps++;
+            }
+            for (int i = 0; i < numDP; i++) {
+                if (isClosestPickUp[p][i] > 0.5) {
+                    clusterOf[i] = p;
+                }
+            }
+        }
+
+        for (int b = 0; b < trips.length; b++) {
+            for (int i = 0; i < numDP; i++) {
+                for (int j = 0; j < trips[b][i].length; j++) {
+                    capacity[i] += busCap * Math.round(trips[b][i][j]);
+                }
+            }
+        }
+
+        this.pickUps = new int[numPickUps];
+        int c = 0;
+
+        for (int p = 0; p < numDP; p++) {
+            if (isPickUpLocation[p] > 0.5) {
+                pickUps[c++] = p;
+            }
+        }
+    }
+
+    /**
+     * Reads the current solution of a model, with one attribute query per family of variables
+     * @param model Solved model
+     * @param isPickUpLocation Pick-up location variables of the model
+     * @param busAllocation Bus allocation variables of the model
+     * @param isClosestPickUp Closest pick-up location variables of the model
+     * @param trips Trips variables of the model
+     * @param accumulatedDemand Accumulated demand variables of the last selected demand vector
+     * @param busCap Capacity of the buses
+     * @return Snapshot of the current solution, or null if the model has no solution
+     * @throws GRBException
+     */
+    public static PlanSnapshot read(GRBModel model, GRBVar[] isPickUpLocation, GRBVar[][] busAllocation,
+    GRBVar[][] isClosestPickUp, GRBVar[][][] trips, GRBVar[] accumulatedDemand, int busCap) throws GRBException {
+        if (model.get(GRB.IntAttr.SolCount) == 0) {
+            return null;
+        }
+        return new PlanSnapshot(model.get(GRB.DoubleAttr.ObjVal), model.get(GRB.DoubleAttr.X, isPickUpLocation),
+        model.get(GRB.DoubleAttr.X, busAllocation), model.get(GRB.DoubleAttr.X, isClosestPickUp),
+        model.get(GRB.DoubleAttr.X, trips), model.get(GRB.DoubleAttr.X, accumulatedDemand), busCap);
+    }
+
+    /**
+     * Get the plan as a MIP start for a re-solve of the same model
+     * @return MIP start with the integer variables of the plan
+     */
+    public MIPStart toStart() {
+        return new MIPStart(isPickUpLocation, busAllocation, isClosestPickUp, trips);
+    }
+}
@@ -0,0 +1,93 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBCallback;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+
+/**
+ * Callback that samples the progress of one solve of a model for SolverProgress: the best objective value, the best
+ * bound, the gap, the number of explored nodes and the elapsed time, at most once per sample interval. It also stops
+ * the solve when its sweep point is terminated through SolverProgress. Callbacks with their own work, such as the
+ * WorstCaseCallback, extend this class and call super.callback()
+ *
+ * @author 562606ad
+ */
+public class ProgressCallback extends GRBCallback {
+    public String run;
+    public String point;
+    public String model;
+    public double level;
+    public long startTime;
+    public double lastSample;
+
+    /**
+     * Constructor for the callback of a new run, which belongs to the sweep point of the current thread. Outside of a
+     * sweep point the run is a point of its own
+     * @param model Name of the model, such as RTPL or WCD
+     * @param level Degree of pessimism or correlation parameter
+     */
+    public ProgressCallback(String model, double level) {
+        this.run = SolverProgress.nextRun(model);
+        this.point = SolverProgress.currentPoint() == null ? run : SolverProgress.currentPoint();
+        this.model = model;
+        this.level = level;
+        this.startTime = System.currentTimeMillis();
+        this.lastSample = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    protected void callback() {
+        if (!SolverProgress.isEnabled()) {
+            return;
+        }
+
+        // Stopped at any callback, so also a solve that is still in its root relaxation
+        if (SolverProgress.isTerminated(point)) {
+            abort();
+            return;
+        }
+        if (where != GRB.CB_MIP) {
+            return;
+        }
+
+        try {
+            double runtime = getDoubleInfo(GRB.CB_RUNTIME);
+
+            if (runtime - lastSample < SolverProgress.getInterval() / 1000.0) {
+                return;
+            }
+            lastSample = runtime;
+
+            SolverProgress.record(new SolverProgress.Sample(run, point, model, level, runtime,
+            getDoubleInfo(GRB.CB_MIP_OBJBST), getDoubleInfo(GRB.CB_MIP_OBJBND),
+            (long) getDoubleInfo(GRB.CB_MIP_NODCNT), false));
+        } catch (GRBException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Records the final sample of the run from the attributes of the solved model, after which the run is no longer
+     * running. If the attributes cannot be read, for example because the solve failed, the final sample has no
+     * solution and no bound
+     * @param solved Model that has been solved with this callback
+     */
+    public void finish(GRBModel solved) {
+        if (!SolverProgress.isEnabled()) {
+            return;
+        }
+        double runtime = (System.currentTimeMillis() - startTime) / 1000.0;
+        SolverProgress.Sample last;
+
+        try {
+            boolean hasSolution = solved.get(GRB.IntAttr.SolCount) > 0;
+
+            last = new SolverProgress.Sample(run, point, model, level, runtime,
+            hasSolution ? solved.get(GRB.DoubleAttr.ObjVal) : GRB.INFINITY,
+            hasSolution ? solved.get(GRB.DoubleAttr.ObjBound) : -GRB.INFINITY,
+            (long) solved.get(GRB.DoubleAttr.NodeCount), true);
+        } catch (GRBException e) {
+            last = new SolverProgress.Sample(run, point, model, level, runtime, GRB.INFINITY, -GRB.INFINITY, 0, true);
+        }
+        SolverProgress.record(last);
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Consolidated output of the results of a sweep, instead of one workbook per run. The results are written on a
+ * background thread, in the order in which they are submitted, so the sweep does not wait for the output and the
+ * threads of a parallel sweep can submit at the same time. Three formats are supported:
+ * XLSX, a streaming workbook with one sheet per run in the layout of the former results workbooks;
+ * CSV, one file with a row per bus, pick-up location and shelter of every run;
+ * BINARY, a columnar file with a header (the int "RTPR" and the int version) followed by a block per run: the model
+ * and level as UTF strings, the count, the duration in ms as a long, the objective value as a double, the number of
+ * rows and then the columns bus, pick-up location and shelter as ints and trips and accumulated demand as doubles
+ *
+ * @author 562606ad
+ */
+public class ResultsSink implements AutoCloseable {
+    public static final int MAGIC = 0x52545052; // "RTPR"
+    public static final int VERSION = 1;
+
+    /**
+     * Format of the output of the sweeps of the RTPL and ZDRTPL models
+     */
+    public static Format format = Format.XLSX;
+
+    /**
+     * Output formats
+     */
+    public enum Format {
+        XLSX(".xlsx"), CSV(".csv"), BINARY(".rtpr");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public String filePath;
+    public Format outputFormat;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "results-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SXSSFWorkbook workbook;
+    private BufferedWriter csv;
+    private DataOutputStream binary;
+    private volatile Exception failure;
+
+    /**
+     * Constructor for a sink in the current format
+     * @param baseName Path of the output without extension
+     * @throws IOException
+     */
+    public ResultsSink(String baseName) throws IOException {
+        this(baseName, format);
+    }
+
+    /**
+     * Constructor for a sink
+     * @param baseName Path of the output without extension
+     * @param outputFormat Format of the output
+     * @throws IOException
+     */
+    public ResultsSink(String baseName, Format outputFormat) throws IOException {
+        this.filePath = baseName + outputFormat.extension;
+        this.outputFormat = outputFormat;
+
+        switch (outputFormat) {
+            case XLSX:
+                // Only a window of rows per sheet is kept in memory, the rest is flushed to temporary files
+                this.workbook = new SXSSFWorkbook(100);
+                break;
+            case CSV:
+                this.csv = new BufferedWriter(new FileWriter(filePath));
+                csv.write("Model,Level,Run,Bus,Demand Point,Shelter,Trips,Accumulated Demand,Time (min),Duration (ms)");
+                csv.newLine();
+                break;
+            case BINARY:
+                this.binary = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)));
+                binary.writeInt(MAGIC);
+                binary.writeInt(VERSION);
+                break;
+        }
+    }
+
+    /**
+     * Submits the results of a run, which are written on the background thread
+     * @param result Results of the run
+     * @throws IOException If writing an earlier result failed
+     */
+    public void write(RunResult result) throws IOException {
+        checkFailure();
+
+        writer.execute(() -> {
+            // After the first failure the output is incomplete, so the remaining results are not written
+            if (failure != null) {
+                return;
+            }
+            try {
+                append(result);
+            } catch (Exception e) {
+                // Not only I/O errors, also for example a sheet name that is used twice, would otherwise be lost
+                // in the executor
+                failure = e;
+            }
+        });
+    }
+
+    /**
+     * Rethrows the first failure of the background thread
+     * @throws IOException If writing a result failed
+     */
+    private void checkFailure() throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new IOException("Writing the results to " + filePath + " failed", failure);
+        }
+    }
+
+    /**
+     * Writes the results of a run to the output
+     * @param result Results of the run
+     * @throws IOException
+     */
+    private void append(RunResult result) throws IOException {
+        switch (outputFormat) {
+            case XLSX:
+                writeSheet(workbook.createSheet("Results_" + result.level + "_" + result.count), result);
+                break;
+            case CSV:
+                for (int r = 0; r < result.numRows; r++) {
+                    csv.write(result.model + "," + result.level + "," + result.count + "," + result.bus[r] + ","
+                    + result.pickUp[r] + "," + result.shelter[r] + "," + result.trips[r] + ","
+                    + result.accumulatedDemand[r] + "," + result.objective + "," + result.duration);
+                    csv.newLine();
+                }
+                break;
+            case BINARY:
+                binary.writeUTF(result.model);
+                binary.writeUTF(result.level);
+                binary.writeInt(result.count);
+                binary.writeLong(result.duration);
+                binary.writeDouble(result.objective);
+                binary.writeInt(result.numRows);
+
+                for (int value : result.bus) {
+                    binary.writeInt(value);
+                }
+                for (int value : result.pickUp) {
+                    binary.writeInt(value);
+                }
+                for (int value : result.shelter) {
+                    binary.writeInt(value);
+                }
+                for (double value : result.trips) {
+                    binary.writeDouble(value);
+                }
+                for (double value : result.accumulatedDemand) {
+                    binary.writeDouble(value);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Writes the results of a run to a sheet, in the layout of the former results workbooks: the objective value and
+     * the duration are only in the first row
+     * @param sheet Empty sheet
+     * @param result Results of the run
+     */
+    private static void writeSheet(Sheet sheet, RunResult result) {
+        Row headerRow = sheet.createRow(0);
+        headerRow.createCell(0).setCellValue("Bus");
+        headerRow.createCell(1).setCellValue("Demand Point");
+        headerRow.createCell(2).setCellValue("Shelter");
+        headerRow.createCell(3).setCellValue("Trips");
+        headerRow.createCell(4).setCellValue("Accumulated Demand");
+        headerRow.createCell(5).setCellValue("Time (min)");
+        headerRow.createCell(6).setCellValue("Duration (ms)");
+
+        for (int r = 0; r < result.numRows; r++) {
+            Row dataRow = sheet.createRow(r + 1);
+            dataRow.createCell(0).setCellValue(result.bus[r]);
+            dataRow.createCell(1).setCellValue(result.pickUp[r]);
+            dataRow.createCell(2).setCellValue(result.shelter[r]);
+            dataRow.createCell(3).setCellValue(result.trips[r]);
+            dataRow.createCell(4).setCellValue(result.accumulatedDemand[r]);
+
+            if (r == 0) {
+                dataRow.createCell(5).setCellValue(result.objective);
+                dataRow.createCell(6).setCellValue(result.duration);
+            }
+        }
+    }
+
+    /**
+     * Writes the results of a single run to its own workbook, on the calling thread
+     * @param result Results of the run
+     * @param filePath Path to the Excel file
+     * @throws IOException
+     */
+    public static void writeWorkbook(RunResult result, String filePath) throws IOException {
+        SXSSFWorkbook single = new SXSSFWorkbook(100);
+
+        try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+            writeSheet(single.createSheet("Results_" + result.level + "_" + result.count), result);
+            single.write(fileOut);
+        } finally {
+            single.dispose();
+            single.close();
+        }
+    }
+
+    /**
+     * Waits until all submitted results are written and closes the output
+     * @throws IOException If writing a result failed
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        switch (outputFormat) {
+            case XLSX:
+                try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+                    workbook.write(fileOut);
+                } finally {
+                    workbook.dispose();
+                    workbook.close();
+                }
+                break;
+            case CSV:
+                csv.close();
+                break;
+            case BINARY:
+                binary.close();
+                break;
+        }
+        checkFailure();
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Results of one run of the RTPL or ZDRTPL model, extracted from the solved model into primitive arrays so that they
+ * can be written after the model has been changed for the next run or disposed. There is one row per bus, pick-up
+ * location and shelter with trips, the rows of the results workbooks
+ *
+ * @author 562606ad
+ */
+public class RunResult {
+    public String model;
+    public String level;
+    public int count;
+    public long duration;
+    public double objective;
+
+    public int numRows;
+    public int[] bus;
+    public int[] pickUp;
+    public int[] shelter;
+    public double[] trips;
+    public double[] accumulatedDemand;
+
+    /**
+     * Constructor for the results of a run
+     * @param model Name of the model, RTPL or ZDRTPL
+     * @param level Degree of pessimism or correlation parameter, as in the names of the results files
+     * @param count Number of the run
+     * @param duration Duration of the optimization process in ms
+     * @param plan Snapshot of the solution
+     * @param schedule Schedule of every bus in the solution
+     */
+    public RunResult(String model, String level, int count, long duration, PlanSnapshot plan, BusSchedule schedule) {
+        this.model = model;
+        this.level = level;
+        this.count = count;
+        this.duration = duration;
+        this.objective = plan.objective;
+
+        int numDP = plan.numDP;
+        double[] isPickUpLocationValues = plan.isPickUpLocation;
+
+        for (int b = 0; b < schedule.numBus; b++) {
+            for (int i = 0; i < numDP; i++) {
+                if (schedule.busAllocation[b][i] == 1.0 && isPickUpLocationValues[i] == 1.0) {
+                    for (int j = 0; j < schedule.trips[b][i].length; j++) {
+                        if (schedule.trips[b][i][j] > 0.0) {
+                            numRows++;
+                        }
+                    }
+                }
+            }
+        }
+
+        this.bus = new int[numRows];
+        this.pickUp = new int[numRows];
+        this.shelter = new int[numRows];
+        this.trips = new double[numRows];
+        this.accumulatedDemand = new double[numRows];
+        int row = 0;
+
+        for (int b = 0; b < schedule.numBus; b++) {
+            for (int i = 0; i < numDP; i++) {
+                if (schedule.busAllocation[b][i] == 1.0 && isPickUpLocationValues[i] == 1.0) {
+                    for (int j = 0; j < schedule.trips[b][i].length; j++) {
+                        if (schedule.trips[b][i][j] > 0.0) {
+                            bus[row] = b;
+                            pickUp[row] = i;
+                            shelter[row] = j;
+                            trips[row] = schedule.trips[b][i][j];
+                            accumulatedDemand[row] = plan.accumulatedDemand[i];
+                            row++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
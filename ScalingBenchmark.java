@@ -0,0 +1,110 @@
+import com.gurobi.gurobi.GRB;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * End-to-end scaling benchmark of the RTPL model on synthetic networks from NetworkGenerator. For every size the network
+ * is written in the CSV layout of the real networks and loaded from disk, after which the model is built and solved
+ * against the worst-case demand. The load time, build time, solve time, number of iterations of the worst-case demand
+ * loop and the peak memory of the JVM heap and of Gurobi are printed per size. The bus-aggregated model and the exact
+ * oracle are used, since the per-bus model and the enumerating oracle do not fit in memory for the larger networks.
+ * Usage: ScalingBenchmark [size ...]
+ *
+ * @author 562606ad
+ */
+public class ScalingBenchmark {
+    public static final String DIRECTORY = "Synthetic network data";
+    public static final long SEED = 2024;
+    // Time limit of every optimization of the model, in seconds
+    public static final double TIME_LIMIT = 600;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {50, 100, 200, 500, 1000, 2000};
+
+        if (args.length > 0) {
+            sizes = new int[args.length];
+
+            for (int k = 0; k < args.length; k++) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+
+        int longestWalk = 60;
+        int maxT = 180;
+        int busCap = 30;
+
+        RTPL.aggregateBuses = true;
+        RTPL.exactOracle = true;
+
+        System.out.println("size,demand points,shelters,buses,pess,load (ms),build (ms),solve (ms),iterations,"
+        + "status,objective,peak heap (MB),peak Gurobi (MB)");
+
+        try {
+            for (int size : sizes) {
+                NetworkGenerator generator = new NetworkGenerator(size, SEED);
+                generator.write(DIRECTORY);
+                resetPeakHeap();
+
+                long startTime = System.nanoTime();
+                NetworkInstance network = generator.load(DIRECTORY);
+                long loadTime = (System.nanoTime() - startTime) / 1_000_000; // Convert to milliseconds
+
+                int numBus = Math.max(10, network.numDP * 2 / 3);
+                int pess = network.numDP / 10;
+
+                startTime = System.nanoTime();
+
+                try (RTPL rtpl = new RTPL(network, longestWalk, maxT, pess,
+                DemandMatrix.of(network.getNominalDemand()), numBus, busCap)) {
+                    long buildTime = (System.nanoTime() - startTime) / 1_000_000;
+
+                    rtpl.model.set(GRB.DoubleParam.TimeLimit, TIME_LIMIT);
+                    startTime = System.nanoTime();
+                    int iterations = rtpl.solveRobust();
+                    long solveTime = (System.nanoTime() - startTime) / 1_000_000;
+
+                    int status = rtpl.model.get(GRB.IntAttr.Status);
+                    String objective = rtpl.model.get(GRB.IntAttr.SolCount) > 0
+                    ? String.valueOf(rtpl.model.get(GRB.DoubleAttr.ObjVal)) : "";
+
+                    System.out.println(size + "," + network.numDP + "," + network.numSh + "," + numBus + "," + pess + ","
+                    + loadTime + "," + buildTime + "," + solveTime + "," + iterations + "," + status + "," + objective
+                    + "," + peakHeap() / (1 << 20) + "," + rtpl.model.get(GRB.DoubleAttr.MaxMemUsed) * 1024);
+                }
+            }
+        } finally {
+            RTPL.aggregateBuses = false;
+            RTPL.exactOracle = false;
+            EnvPool.disposeAll();
+        }
+    }
+
+    /**
+     * Resets the peak usage of the heap memory pools, so that the peak of the next size can be measured
+     */
+    private static void resetPeakHeap() {
+        System.gc();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Get the peak usage of the heap since the last reset
+     * @return Sum of the peak usage of the heap memory pools in bytes
+     */
+    private static long peakHeap() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
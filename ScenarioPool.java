@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pool of the selected demand vectors (scenarios) of the RTPL and ZDRTPL models, in the same order as the selected
+ * demand vectors. A scenario is stored against the nominal demand: a bitset of the demand points above the nominal
+ * demand and a bitset of the demand points below it. If the possible demand vectors are the nominal and the high demand,
+ * as in the RTPL model, and the scenario has the high demand at every point above the nominal demand, the bitsets are
+ * all there is to store; otherwise, as in the ZDRTPL model, the demand of the points that differ from the nominal
+ * demand is stored as a compact delta. A new scenario is rejected if an equal scenario is in the pool, found in a hash
+ * set of the scenarios, and optionally if a scenario with at least its demand at every point is in the pool, since its constraints
+ * would then add nothing to the model. Scenarios that the new scenario dominates are removed in the same way
+ *
+ * @author 562606ad
+ */
+public class ScenarioPool {
+    public int numDP;
+    public int numWords;
+    public int[] nominal;
+    public int[] high;
+
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final Set<Scenario> distinct = new HashSet<>();
+
+    /**
+     * Scenario encoded against the nominal demand, equal to another scenario of the same pool if the demand is the same
+     * at every demand point
+     */
+    private static class Scenario {
+        long[] up;
+        long[] down;
+        int[] points;
+        int[] values;
+        int hash;
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Whether two encoded scenarios are equal, the points of the deltas follow from the bitsets
+         * @param other Encoded scenario
+         * @return True if the demand is the same at every demand point
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Scenario)) {
+                return false;
+            }
+            Scenario scenario = (Scenario) other;
+
+            return hash == scenario.hash && Arrays.equals(up, scenario.up) && Arrays.equals(down, scenario.down)
+            && Arrays.equals(values, scenario.values);
+        }
+    }
+
+    /**
+     * Constructor for an empty pool
+     * @param demandVectors Possible vectors of demand for each demand point, the first one is the nominal demand
+     */
+    public ScenarioPool(DemandMatrix demandVectors) {
+        this.numDP = demandVectors.numDP;
+        this.numWords = (numDP + 63) / 64;
+        this.nominal = demandVectors.row(0);
+
+        // Only a pool of nominal and high demand can leave the demand of the points above the nominal demand implicit
+        if (demandVectors.size() == 2) {
+            this.high = demandVectors.row(1);
+        }
+    }
+
+    /**
+     * Get the number of scenarios
+     * @return Number of scenarios in the pool
+     */
+    public int size() {
+        return scenarios.size();
+    }
+
+    /**
+     * Offers a scenario to the pool
+     * @param vector Demand of each demand point
+     * @param dominance Whether scenarios that are dominated, lower or equal at every point, are removed as well
+     * @return Indices of the scenarios that were removed because the new scenario dominates them, in increasing order,
+     * or null if the new scenario was rejected. If it was added, it is the last scenario of the pool
+     */
+    public int[] offer(int[] vector, boolean dominance) {
+        Scenario offered = encode(vector);
+
+        if (distinct.contains(offered)) {
+            return null;
+        }
+
+        int[] removed = new int[scenarios.size()];
+        int numRemoved = 0;
+
+        if (dominance) {
+            for (Scenario scenario : scenarios) {
+                if (dominates(scenario, offered)) {
+                    return null;
+                }
+            }
+            for (int s = 0; s < scenarios.size(); s++) {
+                if (dominates(offered, scenarios.get(s))) {
+                    removed[numRemoved++] = s;
+                }
+            }
+            for (int k = numRemoved - 1; k >= 0; k--) {
+                distinct.remove(scenarios.remove(removed[k]));
+            }
+        }
+        scenarios.add(offered);
+        distinct.add(offered);
+        return Arrays.copyOf(removed, numRemoved);
+    }
+
+    /**
+     * Encodes a scenario against the nominal demand
+     * @param vector Demand of each demand point
+     * @return Encoded scenario
+     */
+    private Scenario encode(int[] vector) {
+        Scenario scenario = new Scenario();
+        scenario.up = new long[numWords];
+        scenario.down = new long[numWords];
+
+        boolean implicit = high != null;
+        int numDeltas = 0;
+
+        for (int i = 0; i < numDP; i++) {
+            if (vector[i] > nominal[i]) {
+                scenario.up[i >>> 6] |= 1L << i;
+                implicit = implicit && vector[i] == high[i];
+                numDeltas++;
+            } else if (vector[i] < nominal[i]) {
+                scenario.down[i >>> 6] |= 1L << i;
+                implicit = false;
+                numDeltas++;
+            }
+        }
+
+        int hash = 31 * Arrays.hashCode(scenario.up) + Arrays.hashCode(scenario.down);
+
+        if (!implicit) {
+            scenario.points = new int[numDeltas];
+            scenario.values = new int[numDeltas];
+            int k = 0;
+
+            for (int i = 0; i < numDP; i++) {
+                if (vector[i] != nominal[i]) {
+                    scenario.points[k] = i;
+                    scenario.values[k] = vector[i];
+                    k++;
+                }
+            }
+            hash = 31 * hash + Arrays.hashCode(scenario.values);
+        }
+        scenario.hash = hash;
+        return scenario;
+    }
+
+    /**
+     * Demand of a demand point in an encoded scenario
+     * @param scenario Encoded scenario
+     * @param i Demand point
+     * @return Demand of demand point i
+     */
+    private int value(Scenario scenario, int i) {
+        long bit = 1L << i;
+
+        if ((scenario.up[i >>> 6] & bit) == 0 && (scenario.down[i >>> 6] & bit) == 0) {
+            return nominal[i];
+        }
+        if (scenario.values == null) {
+            return high[i];
+        }
+        return scenario.values[Arrays.binarySearch(scenario.points, i)];
+    }
+
+    /**
+     * Whether a scenario has at least the demand of another scenario at every demand point. This requires that the
+     * points above the nominal demand of b are above it in a as well, and the points below the nominal demand of a
+     * below it in b as well; only the demand of the points in both of these sets has to be compared
+     * @param a Encoded scenario
+     * @param b Encoded scenario
+     * @return True if a dominates b
+     */
+    private boolean dominates(Scenario a, Scenario b) {
+        for (int w = 0; w < numWords; w++) {
+            if ((b.up[w] & ~a.up[w]) != 0 || (a.down[w] & ~b.down[w]) != 0) {
+                return false;
+            }
+        }
+        if (a.values == null && b.values == null) {
+            return true;
+        }
+
+        for (int w = 0; w < numWords; w++) {
+            for (long bits = b.up[w] | a.down[w]; bits != 0; bits &= bits - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+
+                if (value(a, i) < value(b, i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
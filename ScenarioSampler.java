@@ -0,0 +1,170 @@
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Lazy sampler of demand scenarios from the nominal, low and high demand of each demand point. Every scenario has its own
+ * random number generator, seeded from the seed of the sampler and the index of the scenario, so a scenario does not
+ * depend on which thread or batch draws it and parallel sampling gives the same scenarios as serial sampling.
+ * In the independent model every demand point has nominal, low or high demand with equal probability. The correlated
+ * model samples the uncertainty set of the ZDRTPL model: at most one type, or none, has high demand at all of its demand
+ * points, and every other type has low demand at a random ceil(parameter * size of the type) of its demand points and
+ * nominal or low demand with equal probability at the others. Demand points without a type are drawn as in the
+ * independent model
+ *
+ * @author 562606ad
+ */
+public class ScenarioSampler {
+    public int numDP;
+    public int numTypes;
+    public long seed;
+    public double parameter;
+
+    public DemandMatrix demandValues;
+    public int[] typeOf;
+    public int[][] members;
+    public int[] numLow;
+
+    /**
+     * Constructor for a sampler of the independent model
+     * @param demandValues Demand matrix with the nominal, low and high demand values
+     * @param seed Seed of the sampler
+     */
+    public ScenarioSampler(DemandMatrix demandValues, long seed) {
+        this(demandValues, new int[0], new int[demandValues.numDP], 0, seed);
+    }
+
+    /**
+     * Constructor for a sampler of the correlated model
+     * @param demandValues Demand matrix with the nominal, low and high demand values
+     * @param types Array containing the types of the demand points
+     * @param assignment Array containing the type of each demand point
+     * @param parameter Correlation parameter, the fraction of the demand points of a type without high demand that has low
+     * demand
+     * @param seed Seed of the sampler
+     */
+    public ScenarioSampler(DemandMatrix demandValues, int[] types, int[] assignment, double parameter, long seed) {
+        this.numDP = demandValues.numDP;
+        this.numTypes = types.length;
+        this.seed = seed;
+        this.parameter = parameter;
+        this.demandValues = demandValues;
+        this.typeOf = new int[numDP];
+        this.members = new int[numTypes][];
+        this.numLow = new int[numTypes];
+
+        int[][] typeAssignment = helper.assignTypes(types, assignment);
+
+        for (int i = 0; i < numDP; i++) {
+            typeOf[i] = -1;
+
+            for (int t = 0; t < numTypes; t++) {
+                if (typeAssignment[i][t] == 1) {
+                    typeOf[i] = t;
+                }
+            }
+        }
+
+        int[] numOfEachType = new int[numTypes];
+
+        for (int i = 0; i < numDP; i++) {
+            if (typeOf[i] != -1) {
+                numOfEachType[typeOf[i]]++;
+            }
+        }
+        for (int t = 0; t < numTypes; t++) {
+            members[t] = new int[numOfEachType[t]];
+            numLow[t] = (int) Math.ceil(numOfEachType[t] * parameter);
+            numOfEachType[t] = 0;
+        }
+        for (int i = 0; i < numDP; i++) {
+            if (typeOf[i] != -1) {
+                members[typeOf[i]][numOfEachType[typeOf[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Draws one scenario into an array
+     * @param k Index of the scenario
+     * @param into Array to write the scenario to
+     * @param offset Index in the array of the first demand point
+     */
+    public void sample(long k, int[] into, int offset) {
+        SplittableRandom random = new SplittableRandom(mix(seed + 0x9E3779B97F4A7C15L * (k + 1)));
+
+        for (int i = 0; i < numDP; i++) {
+            if (typeOf[i] == -1) {
+                into[offset + i] = demandValues.get(random.nextInt(3), i);
+            }
+        }
+        if (numTypes == 0) {
+            return;
+        }
+
+        // The type with high demand, or numTypes if no type has high demand
+        int highType = random.nextInt(numTypes + 1);
+
+        for (int t = 0; t < numTypes; t++) {
+            int[] points = members[t].clone();
+
+            for (int m = 0; m < points.length; m++) {
+                int level;
+
+                if (t == highType) {
+                    level = 2;
+                } else if (m < numLow[t]) {
+                    // Partial shuffle, the first numLow[t] points of the type are a random subset with low demand
+                    int r = m + random.nextInt(points.length - m);
+                    int point = points[r];
+                    points[r] = points[m];
+                    points[m] = point;
+                    level = 1;
+                } else {
+                    level = random.nextInt(2);
+                }
+                into[offset + points[m]] = demandValues.get(level, points[m]);
+            }
+        }
+    }
+
+    /**
+     * Draws a batch of consecutive scenarios, the scenarios are drawn in parallel
+     * @param first Index of the first scenario
+     * @param count Number of scenarios
+     * @return Demand matrix with the scenarios first to first + count
+     */
+    public DemandMatrix batch(long first, int count) {
+        DemandMatrix batch = new DemandMatrix(numDP, count);
+
+        IntStream.range(0, count).parallel().forEach(k -> sample(first + k, batch.values, k * numDP));
+        batch.numScenarios = count;
+        return batch;
+    }
+
+    /**
+     * Lazy stream of consecutive scenarios, which can be made parallel without changing the scenarios
+     * @param first Index of the first scenario
+     * @param count Number of scenarios
+     * @return Stream of the scenarios first to first + count
+     */
+    public Stream<int[]> stream(long first, long count) {
+        return LongStream.range(first, first + count).mapToObj(k -> {
+            int[] scenario = new int[numDP];
+            sample(k, scenario, 0);
+            return scenario;
+        });
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads consecutive seeds over all bits
+     * @param z Value to mix
+     * @return Mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
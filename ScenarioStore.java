@@ -0,0 +1,196 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary file of simulated demand vectors that is read through memory maps, so it can be larger than the heap and the
+ * demand is read in place without copying it into lists. The file starts with a header of 24 bytes (the magic number,
+ * the version, the number of demand points, the number of bytes per value and the number of samples), followed by
+ * the samples in row-major order as little-endian int16 or int32 values
+ *
+ * @author 562606ad
+ */
+public class ScenarioStore implements AutoCloseable {
+    public static final int MAGIC = 0x52545043; // "RTPC"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 24;
+
+    public int numDP;
+    public int valueBytes;
+    public long numSamples;
+    public int samplesPerSegment;
+
+    public RandomAccessFile file;
+    public MappedByteBuffer[] segments;
+
+    /**
+     * Opens a scenario file and maps it into memory, in segments of whole samples of at most 2 GB each
+     * @param filePath Path to the scenario file
+     * @throws IOException If the file is not a scenario file
+     */
+    public ScenarioStore(String filePath) throws IOException {
+        this.file = new RandomAccessFile(filePath, "r");
+        FileChannel channel = file.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            file.close();
+            throw new IOException("Not a scenario file: " + filePath);
+        }
+        this.numDP = header.getInt();
+        this.valueBytes = header.getInt();
+        this.numSamples = header.getLong();
+
+        long rowBytes = (long) numDP * valueBytes;
+        this.samplesPerSegment = (int) Math.min(numSamples, Integer.MAX_VALUE / rowBytes);
+        int numSegments = samplesPerSegment == 0 ? 0 : (int) ((numSamples + samplesPerSegment - 1) / samplesPerSegment);
+        this.segments = new MappedByteBuffer[numSegments];
+
+        for (int s = 0; s < numSegments; s++) {
+            long first = (long) s * samplesPerSegment;
+            long count = Math.min(samplesPerSegment, numSamples - first);
+
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * rowBytes, count * rowBytes);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Get the demand of a demand point in a sample, read directly from the mapped file
+     * @param sample Index of the sample
+     * @param i Demand point
+     * @return Demand of the demand point in the sample
+     */
+    public int demand(long sample, int i) {
+        MappedByteBuffer segment = segments[(int) (sample / samplesPerSegment)];
+        int index = (int) (sample % samplesPerSegment) * numDP + i;
+
+        if (valueBytes == 2) {
+            return segment.getShort(index * 2);
+        }
+        return segment.getInt(index * 4);
+    }
+
+    /**
+     * Closes the scenario file, the mapped segments are released once they are no longer used
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Converts a CSV file of simulated demand vectors, one sample per line, to a scenario file. A non-numeric header
+     * line and empty lines are skipped, as in helper.readColumnsFromCSV. The values are stored as int16 if they all fit,
+     * as int32 otherwise. The CSV file is streamed twice and never held in memory
+     * @param csvPath Path to the CSV file
+     * @param storePath Path to the scenario file to write
+     * @param numDP Number of demand points, every line has one column per demand point
+     * @throws IOException If a line does not have exactly numDP columns
+     */
+    public static void convertCSV(String csvPath, String storePath, int numDP) throws IOException {
+        long numSamples = 0;
+        boolean fitsShort = true;
+
+        try (BufferedReader br = new BufferedReader(new FileReader(csvPath))) {
+            String line;
+            long lineNumber = 0;
+
+            while ((line = br.readLine()) != null) {
+                int[] vector = parseLine(line, ++lineNumber, numDP);
+
+                if (vector == null) {
+                    continue;
+                }
+                for (int value : vector) {
+                    fitsShort &= value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+                }
+                numSamples++;
+            }
+        }
+        int valueBytes = fitsShort ? 2 : 4;
+
+        try (RandomAccessFile out = new RandomAccessFile(storePath, "rw");
+        BufferedReader br = new BufferedReader(new FileReader(csvPath))) {
+            out.setLength(0);
+            FileChannel channel = out.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(numDP).putInt(valueBytes).putLong(numSamples);
+            header.flip();
+            write(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            String line;
+            long lineNumber = 0;
+
+            while ((line = br.readLine()) != null) {
+                int[] vector = parseLine(line, ++lineNumber, numDP);
+
+                if (vector == null) {
+                    continue;
+                }
+                if (buffer.remaining() < numDP * valueBytes) {
+                    buffer.flip();
+                    write(channel, buffer);
+                    buffer.clear();
+                }
+                for (int value : vector) {
+                    if (valueBytes == 2) {
+                        buffer.putShort((short) value);
+                    } else {
+                        buffer.putInt(value);
+                    }
+                }
+            }
+            buffer.flip();
+            write(channel, buffer);
+        }
+    }
+
+    /**
+     * Parses a line of a CSV file of simulated demand vectors
+     * @param line Line of the CSV file
+     * @param lineNumber Number of the line, the first line is 1
+     * @param numDP Number of demand points
+     * @return Demand of each demand point, or null if the line is the header or empty
+     * @throws IOException If the line does not have exactly numDP columns
+     */
+    private static int[] parseLine(String line, long lineNumber, int numDP) throws IOException {
+        String[] values = line.split(",");
+
+        if (line.trim().isEmpty() || lineNumber == 1 && !values[0].trim().matches("-?\\d+")) {
+            return null;
+        }
+        if (values.length != numDP) {
+            throw new IOException("Line " + lineNumber + " has " + values.length + " columns instead of " + numDP);
+        }
+        int[] vector = new int[numDP];
+
+        for (int i = 0; i < numDP; i++) {
+            vector[i] = Integer.parseInt(values[i].trim());
+        }
+        return vector;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel
+     * @param channel Channel to write to
+     * @param buffer Buffer to write
+     * @throws IOException
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Live progress of the solves of the RTPL, ZDRTPL, WCD and ZDWCD models. Once enabled, every solve is a run that is
+ * sampled by a ProgressCallback at a fixed interval. The samples are kept in a bounded ring buffer that can be queried
+ * from code, and the last sample of every running solve is served in the Prometheus text format on localhost, so many
+ * parallel sweep points can be watched and the stragglers terminated. A sweep point is terminated as a whole: every
+ * solve of the point stops at its next callback, and a solve that was stopped ends in an exception instead of a
+ * solution, so the point fails rather than reporting an incumbent that was cut off. Usage:
+ * SolverProgress.enable(1000, 10000); SolverProgress.serve(9464); and then http://localhost:9464/metrics
+ *
+ * @author 562606ad
+ */
+public class SolverProgress {
+    private static volatile boolean enabled = false;
+    private static volatile long interval = 1000;
+    private static int capacity = 10000;
+
+    private static final ArrayDeque<Sample> recent = new ArrayDeque<>();
+    private static final Map<String, Sample> running = new ConcurrentHashMap<>();
+    private static final Set<String> terminated = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong runs = new AtomicLong();
+    private static final AtomicLong samples = new AtomicLong();
+    private static final ThreadLocal<String> point = new ThreadLocal<>();
+    private static HttpServer server;
+
+    /**
+     * Progress of a run at one moment
+     */
+    public static class Sample {
+        public String run;
+        public String point;
+        public String model;
+        public double level;
+        public String thread;
+        public long timestamp;
+        public double elapsed;
+        public double incumbent;
+        public double bound;
+        public double gap;
+        public long nodeCount;
+        public boolean done;
+
+        /**
+         * Constructor for a sample
+         * @param run Identifier of the run
+         * @param point Identifier of the sweep point of the run
+         * @param model Name of the model
+         * @param level Degree of pessimism or correlation parameter
+         * @param elapsed Time since the start of the solve in seconds
+         * @param incumbent Objective value of the best solution, GRB.INFINITY if there is none yet
+         * @param bound Best bound on the objective value
+         * @param nodeCount Number of explored branch-and-bound nodes
+         * @param done Whether the solve has finished
+         */
+        public Sample(String run, String point, String model, double level, double elapsed, double incumbent,
+        double bound, long nodeCount, boolean done) {
+            this.run = run;
+            this.point = point;
+            this.model = model;
+            this.level = level;
+            this.thread = Thread.currentThread().getName();
+            this.timestamp = System.currentTimeMillis();
+            this.elapsed = elapsed;
+            this.incumbent = Math.abs(incumbent) >= GRB.INFINITY ? Double.NaN : incumbent;
+            this.bound = Math.abs(bound) >= GRB.INFINITY ? Double.NaN : bound;
+            this.nodeCount = nodeCount;
+            this.done = done;
+
+            // The same definition of the gap as Gurobi, NaN as long as there is no solution
+            if (Double.isNaN(this.incumbent) || Double.isNaN(this.bound)) {
+                this.gap = Double.NaN;
+            } else if (this.incumbent == 0) {
+                this.gap = this.bound == 0 ? 0 : Double.POSITIVE_INFINITY;
+            } else {
+                this.gap = Math.abs(this.bound - this.incumbent) / Math.abs(this.incumbent);
+            }
+        }
+    }
+
+    /**
+     * Starts sampling the solves, solves that are already running are not sampled
+     * @param intervalMillis Minimum time between two samples of a run in milliseconds
+     * @param bufferCapacity Number of recent samples kept in the ring buffer
+     */
+    public static void enable(long intervalMillis, int bufferCapacity) {
+        synchronized (recent) {
+            interval = intervalMillis;
+            capacity = bufferCapacity;
+
+            while (recent.size() > capacity) {
+                recent.removeFirst();
+            }
+        }
+        enabled = true;
+    }
+
+    /**
+     * Stops sampling the solves, the samples taken so far are kept
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Whether the solves are sampled
+     * @return True if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the minimum time between two samples of a run
+     * @return Sample interval in milliseconds
+     */
+    public static long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Get a new identifier of a run
+     * @param model Name of the model
+     * @return Identifier, the name of the model followed by a sequence number
+     */
+    public static String nextRun(String model) {
+        return model + "-" + runs.incrementAndGet();
+    }
+
+    /**
+     * Starts a sweep point on the current thread, the solves on this thread belong to the point until it ends
+     * @param model Name of the model, such as RTPL or ZDRTPL
+     * @param level Degree of pessimism or correlation parameter
+     * @return Identifier of the sweep point, the name of the model followed by the level
+     */
+    public static String beginPoint(String model, double level) {
+        String id = model + "@" + level;
+        point.set(id);
+        return id;
+    }
+
+    /**
+     * Ends the sweep point of the current thread, a termination of the point no longer applies to later solves
+     */
+    public static void endPoint() {
+        String id = point.get();
+
+        if (id != null) {
+            terminated.remove(id);
+            point.remove();
+        }
+    }
+
+    /**
+     * Get the sweep point of the current thread
+     * @return Identifier of the sweep point, or null if no point has begun on this thread
+     */
+    public static String currentPoint() {
+        return point.get();
+    }
+
+    /**
+     * Solves a model, sampled by a new ProgressCallback if the progress is enabled
+     * @param model Model to solve
+     * @param name Name of the model, such as RTPL or WCD
+     * @param level Degree of pessimism or correlation parameter
+     * @throws GRBException
+     */
+    public static void optimize(GRBModel model, String name, double level) throws GRBException {
+        if (!enabled) {
+            model.optimize();
+            checkInterrupted(model, name, level);
+            return;
+        }
+        optimize(model, new ProgressCallback(name, level));
+    }
+
+    /**
+     * Solves a model with a callback, which is removed from the model afterwards. The run is finished also if the solve
+     * fails, so it does not stay among the running runs
+     * @param model Model to solve
+     * @param callback Callback of the solve
+     * @throws GRBException If the solve fails or is terminated
+     */
+    public static void optimize(GRBModel model, ProgressCallback callback) throws GRBException {
+        model.setCallback(callback);
+        try {
+            model.optimize();
+        } finally {
+            model.setCallback(null);
+            callback.finish(model);
+        }
+        checkInterrupted(model, callback.model, callback.level);
+    }
+
+    /**
+     * Checks that a solve has not been interrupted. The incumbent of an interrupted solve is neither optimal nor, for
+     * a worst-case demand model, the worst case, so it must not be used as the result of the sweep point
+     * @param model Solved model
+     * @param name Name of the model, such as RTPL or WCD
+     * @param level Degree of pessimism or correlation parameter
+     * @throws GRBException If the solve has been interrupted
+     */
+    private static void checkInterrupted(GRBModel model, String name, double level) throws GRBException {
+        if (model.get(GRB.IntAttr.Status) == GRB.Status.INTERRUPTED) {
+            String id = point.get();
+            throw new GRBException("Solve of the " + name + " model with level " + level + " was terminated"
+            + (id == null ? "" : " in sweep point " + id));
+        }
+    }
+
+    /**
+     * Records a sample, a sample of a finished run removes it from the running runs. A terminated sweep point stays
+     * terminated until it ends, so the next solves of the point stop as well
+     * @param sample Sample to record
+     */
+    public static void record(Sample sample) {
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(sample);
+        }
+        samples.incrementAndGet();
+
+        if (sample.done) {
+            running.remove(sample.run);
+        } else {
+            running.put(sample.run, sample);
+        }
+    }
+
+    /**
+     * Get the recent samples of all runs
+     * @return Samples in the ring buffer, oldest first
+     */
+    public static List<Sample> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    /**
+     * Get the recent samples of a run
+     * @param run Identifier of the run
+     * @return Samples of the run in the ring buffer, oldest first
+     */
+    public static List<Sample> recent(String run) {
+        List<Sample> ofRun = new ArrayList<>();
+
+        for (Sample sample : recent()) {
+            if (sample.run.equals(run)) {
+                ofRun.add(sample);
+            }
+        }
+        return ofRun;
+    }
+
+    /**
+     * Get the last sample of every running run
+     * @return Last samples, in no particular order
+     */
+    public static List<Sample> running() {
+        return new ArrayList<>(running.values());
+    }
+
+    /**
+     * Terminates the sweep point of a running solve: the running solve stops at its next callback and ends in an
+     * exception, and so does every later solve of the point, such as the next oracle or master solve
+     * @param id Identifier of a running run or of its sweep point
+     */
+    public static void terminate(String id) {
+        for (Sample sample : running.values()) {
+            if (sample.run.equals(id) || sample.point.equals(id)) {
+                terminated.add(sample.point);
+            }
+        }
+    }
+
+    /**
+     * Whether a sweep point has been terminated
+     * @param point Identifier of the sweep point
+     * @return True if the solves of the point have to stop
+     */
+    public static boolean isTerminated(String point) {
+        return terminated.contains(point);
+    }
+
+    /**
+     * Get the last samples of the running runs in the Prometheus text exposition format
+     * @return Metrics text
+     */
+    public static String prometheus() {
+        List<Sample> last = running();
+        StringBuilder text = new StringBuilder();
+
+        text.append("# HELP rtpl_solver_runs_running Number of solves that are running\n");
+        text.append("# TYPE rtpl_solver_runs_running gauge\n");
+        text.append("rtpl_solver_runs_running ").append(last.size()).append('\n');
+        text.append("# HELP rtpl_solver_samples_total Number of samples taken\n");
+        text.append("# TYPE rtpl_solver_samples_total counter\n");
+        text.append("rtpl_solver_samples_total ").append(samples.get()).append('\n');
+
+        appendGauge(text, last, "incumbent", "Objective value of the best solution", sample -> sample.incumbent);
+        appendGauge(text, last, "bound", "Best bound on the objective value", sample -> sample.bound);
+        appendGauge(text, last, "gap", "Relative gap between the incumbent and the bound", sample -> sample.gap);
+        appendGauge(text, last, "nodes", "Number of explored branch-and-bound nodes", sample -> sample.nodeCount);
+        appendGauge(text, last, "elapsed_seconds", "Time since the start of the solve", sample -> sample.elapsed);
+
+        return text.toString();
+    }
+
+    /**
+     * Appends one gauge with a value per running run
+     * @param text Metrics text
+     * @param last Last samples of the running runs
+     * @param name Name of the gauge without prefix
+     * @param help Description of the gauge
+     * @param value Value of the gauge in a sample
+     */
+    private static void appendGauge(StringBuilder text, List<Sample> last, String name, String help,
+    ToDoubleFunction<Sample> value) {
+        text.append("# HELP rtpl_solver_").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE rtpl_solver_").append(name).append(" gauge\n");
+
+        for (Sample sample : last) {
+            text.append("rtpl_solver_").append(name)
+            .append("{run=\"").append(sample.run)
+            .append("\",point=\"").append(sample.point)
+            .append("\",model=\"").append(sample.model)
+            .append("\",level=\"").append(sample.level)
+            .append("\",thread=\"").append(sample.thread.replace("\\", "\\\\").replace("\"", "\\\""))
+            .append("\"} ").append(format(value.applyAsDouble(sample))).append('\n');
+        }
+    }
+
+    /**
+     * Formats a value in the Prometheus text format
+     * @param value Value of a gauge
+     * @return NaN, +Inf, -Inf or the value
+     */
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Serves the metrics on http://localhost:port/metrics, only reachable from this machine
+     * @param port Port of the endpoint
+     * @throws IOException
+     */
+    public static synchronized void serve(int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+    }
+
+    /**
+     * Stops serving the metrics
+     */
+    public static synchronized void stopServing() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent points of a sweep (pessimism levels, correlation parameters, runs) at the same time.
+ * A fixed budget of cores is split between the points that run concurrently: every model built while
+ * running a point gets an equal share of the cores as its Gurobi thread count
+ * 
+ * @author 562606ad
+ */
+public class SweepExecutor implements AutoCloseable {
+    public int coreBudget;
+    public int parallelism;
+    public int threadsPerPoint;
+
+    private ExecutorService pool;
+
+    /**
+     * Constructor for a sweep executor using all the cores of the machine
+     * @param parallelism Number of sweep points that run at the same time
+     */
+    public SweepExecutor(int parallelism) {
+        this(Runtime.getRuntime().availableProcessors(), parallelism);
+    }
+
+    /**
+     * Constructor for the sweep executor
+     * @param coreBudget Number of cores the whole sweep can use
+     * @param parallelism Number of sweep points that run at the same time
+     */
+    public SweepExecutor(int coreBudget, int parallelism) {
+        this.coreBudget = coreBudget;
+        this.parallelism = Math.max(1, Math.min(parallelism, coreBudget));
+        this.threadsPerPoint = Math.max(1, coreBudget / this.parallelism);
+        this.pool = Executors.newFixedThreadPool(this.parallelism);
+    }
+
+    /**
+     * Runs the sweep points and waits for all of them to finish
+     * @param points Sweep points to run
+     * @return Results of the sweep points, in the same order as the points
+     * @throws Exception The exception thrown by the first failing point
+     */
+    public <T> List<T> run(List<Callable<T>> points) throws Exception {
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+
+        for (Callable<T> point : points) {
+            futures.add(pool.submit(() -> {
+                EnvPool.setThreads(threadsPerPoint);
+
+                try {
+                    return point.call();
+                } finally {
+                    EnvPool.setThreads(0);
+                }
+            }));
+        }
+
+        List<T> results = new ArrayList<T>();
+
+        for (int k = 0; k < futures.size(); k++) {
+            try {
+                results.add(futures.get(k).get());
+            } catch (ExecutionException e) {
+                for (Future<T> future : futures) {
+                    future.cancel(false);
+                }
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Splits an ordered sweep into one contiguous chain of sweep points per thread, so the points of a chain can be
+     * solved one after the other and reuse the work of their neighbour
+     * @param points Ordered sweep points
+     * @return Chains of sweep points, in the same order as the points
+     */
+    public <T> List<List<T>> chains(List<T> points) {
+        List<List<T>> chains = new ArrayList<List<T>>();
+        int numChains = Math.min(parallelism, points.size());
+
+        for (int c = 0; c < numChains; c++) {
+            chains.add(new ArrayList<T>(points.subList(c * points.size() / numChains, (c + 1) * points.size() / numChains)));
+        }
+        return chains;
+    }
+
+    /**
+     * Shuts down the threads of the executor
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
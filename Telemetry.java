@@ -0,0 +1,148 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Telemetry of the robust cutting-plane loops of the RTPL and ZDRTPL models. Every iteration of a loop (a solve of the
+ * model followed by a call to the worst-case demand oracle) is published to the registered listeners, such as a
+ * TelemetryLog. Without listeners nothing is read from the model, so the loops are as fast as before
+ *
+ * @author 562606ad
+ */
+public class Telemetry {
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listener for the iterations of the cutting-plane loops, called on the thread of the loop, so listeners of
+     * parallel sweeps have to be thread-safe
+     */
+    public interface Listener {
+
+        /**
+         * Called after every iteration of a cutting-plane loop
+         * @param iteration Measurements of the iteration
+         */
+        void onIteration(Iteration iteration);
+    }
+
+    /**
+     * Measurements of one iteration of a cutting-plane loop
+     */
+    public static class Iteration {
+        public static final String CSV_HEADER = "timestamp,thread,model,level,iteration,build (ms),solve (ms),"
+        + "oracle (ms),MIP gap,nodes,scenarios,violation,memory (MB)";
+
+        public long timestamp;
+        public String thread;
+        public String model;
+        public double level;
+        public int iteration;
+        public double buildTime;
+        public double solveTime;
+        public double oracleTime;
+        public double mipGap;
+        public long nodeCount;
+        public int numScenarios;
+        public double violation;
+        public double memory;
+
+        /**
+         * Constructor for the measurements of an iteration
+         * @param model Name of the model, RTPL or ZDRTPL
+         * @param level Degree of pessimism or correlation parameter
+         * @param iteration Number of the iteration, 0 for the first solve
+         * @param buildTime Time to build the model (iteration 0) or to add the demand vector of the previous iteration
+         * in ms
+         * @param solveTime Time of the solve of the model in ms
+         * @param oracleTime Time of the worst-case demand oracle in ms
+         * @param mipGap MIP gap of the solve of the model
+         * @param nodeCount Number of branch-and-bound nodes of the solve of the model
+         * @param numScenarios Number of selected demand vectors of the model
+         * @param violation Total excess demand of the worst-case demand vector, 0 if the plan is robust
+         * @param memory Memory used by Gurobi in MB
+         */
+        public Iteration(String model, double level, int iteration, double buildTime, double solveTime,
+        double oracleTime, double mipGap, long nodeCount, int numScenarios, double violation, double memory) {
+            this.timestamp = System.currentTimeMillis();
+            this.thread = Thread.currentThread().getName();
+            this.model = model;
+            this.level = level;
+            this.iteration = iteration;
+            this.buildTime = buildTime;
+            this.solveTime = solveTime;
+            this.oracleTime = oracleTime;
+            this.mipGap = mipGap;
+            this.nodeCount = nodeCount;
+            this.numScenarios = numScenarios;
+            this.violation = violation;
+            this.memory = memory;
+        }
+
+        /**
+         * Get the measurements as a line of a CSV file, in the columns of CSV_HEADER
+         * @return Line without line separator
+         */
+        public String toCsv() {
+            return timestamp + "," + thread + "," + model + "," + level + "," + iteration + "," + buildTime + ","
+            + solveTime + "," + oracleTime + "," + mipGap + "," + nodeCount + "," + numScenarios + "," + violation + ","
+            + memory;
+        }
+    }
+
+    /**
+     * Registers a listener for the iterations of all cutting-plane loops
+     * @param listener Listener to add
+     */
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     * @param listener Listener to remove
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Whether any listener is registered
+     * @return True if the iterations are published
+     */
+    public static boolean isEnabled() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Publishes an iteration of a cutting-plane loop to the listeners, with the MIP gap, node count and memory read
+     * from the model that has just been solved
+     * @param model Name of the model, RTPL or ZDRTPL
+     * @param level Degree of pessimism or correlation parameter
+     * @param iteration Number of the iteration, 0 for the first solve
+     * @param buildTime Time to build the model or to add the demand vector in nanoseconds
+     * @param solveTime Time of the solve of the model in nanoseconds
+     * @param oracleTime Time of the worst-case demand oracle in nanoseconds
+     * @param solved Model that has just been solved
+     * @param numScenarios Number of selected demand vectors of the model
+     * @param violation Total excess demand of the worst-case demand vector
+     * @throws GRBException
+     */
+    public static void publish(String model, double level, int iteration, long buildTime, long solveTime,
+    long oracleTime, GRBModel solved, int numScenarios, double violation) throws GRBException {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        // The MIP gap is only defined once the model has a solution
+        double mipGap = solved.get(GRB.IntAttr.SolCount) > 0 ? solved.get(GRB.DoubleAttr.MIPGap) : Double.NaN;
+
+        Iteration measured = new Iteration(model, level, iteration, buildTime / 1e6, solveTime / 1e6, oracleTime / 1e6,
+        mipGap, (long) solved.get(GRB.DoubleAttr.NodeCount), numScenarios, violation,
+        solved.get(GRB.DoubleAttr.MemUsed) * 1024);
+
+        for (Listener listener : listeners) {
+            listener.onIteration(measured);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Append-only CSV log of the iterations of the cutting-plane loops. Every iteration is written and flushed as one
+ * line, so the log can be followed while a sweep is running and is complete up to the last iteration if the sweep is
+ * killed. Usage: Telemetry.addListener(new TelemetryLog("telemetry.csv"))
+ *
+ * @author 562606ad
+ */
+public class TelemetryLog implements Telemetry.Listener, AutoCloseable {
+    private final BufferedWriter writer;
+
+    /**
+     * Constructor for a log, the header is written if the file is new or empty
+     * @param filePath Path to the CSV file, appended to if it exists
+     * @throws IOException
+     */
+    public TelemetryLog(String filePath) throws IOException {
+        boolean isNew = new File(filePath).length() == 0;
+        this.writer = new BufferedWriter(new FileWriter(filePath, true));
+
+        if (isNew) {
+            writer.write(Telemetry.Iteration.CSV_HEADER);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Appends an iteration to the log
+     * @param iteration Measurements of the iteration
+     */
+    @Override
+    public synchronized void onIteration(Telemetry.Iteration iteration) {
+        try {
+            writer.write(iteration.toCsv());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the file of the log, remove the log from the telemetry listeners first
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary cache of the travel-time matrices read from CSV files. The first time a CSV file is read, the parsed matrix is
+ * written next to it (same path with .bin appended) together with the CRC32 checksum of the CSV file. Afterwards the
+ * matrix is memory-mapped from the binary file for as long as the checksum and the size still match. The file has a
+ * header of 32 bytes (the magic number, the version, the size of the matrix, the number of bytes per cell, the checksum
+ * and the length of the CSV file) followed by the cells in row-major order as little-endian int16 or int32 values
+ *
+ * @author 562606ad
+ */
+public class TimesCache {
+    public static final int MAGIC = 0x52545054; // "RTPT"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+
+    /**
+     * Get the travel-time matrix of a CSV file, from its binary cache if the cache is up to date
+     * @param filePath Path to the CSV file
+     * @param size Number of nodes in the network
+     * @return A matrix containing the times between each pair of nodes, the same as helper.parseTimesMatrix
+     */
+    public static int[][] getTimesMatrix(String filePath, int size) {
+        Path csvPath = Paths.get(filePath);
+        Path cachePath = Paths.get(filePath + ".bin");
+        long checksum;
+        long length;
+
+        try {
+            checksum = checksum(csvPath);
+            length = Files.size(csvPath);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return helper.parseTimesMatrix(filePath, size);
+        }
+
+        if (Files.exists(cachePath)) {
+            try {
+                int[][] timesMatrix = read(cachePath, size, checksum, length);
+
+                if (timesMatrix != null) {
+                    return timesMatrix;
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading cache file: " + e.getMessage());
+            }
+        }
+
+        int[][] timesMatrix = helper.parseTimesMatrix(filePath, size);
+
+        try {
+            write(cachePath, timesMatrix, checksum, length);
+        } catch (IOException e) {
+            System.out.println("Error writing cache file: " + e.getMessage());
+        }
+        return timesMatrix;
+    }
+
+    /**
+     * Reads a matrix from a cache file
+     * @param cachePath Path to the cache file
+     * @param size Number of nodes in the network
+     * @param checksum Checksum of the CSV file
+     * @param length Length of the CSV file in bytes
+     * @return The matrix, or null if the cache file does not belong to this version of the CSV file
+     * @throws IOException
+     */
+    private static int[][] read(Path cachePath, int size, long checksum, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(cachePath.toFile(), "r")) {
+            FileChannel channel = file.getChannel();
+
+            if (channel.size() < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != size) {
+                return null;
+            }
+            int cellBytes = buffer.getInt();
+
+            if (buffer.getLong() != checksum || buffer.getLong() != length
+            || channel.size() != HEADER_BYTES + (long) size * size * cellBytes) {
+                return null;
+            }
+
+            int[][] timesMatrix = new int[size][size];
+
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    timesMatrix[i][j] = cellBytes == 2 ? buffer.getShort() : buffer.getInt();
+                }
+            }
+            return timesMatrix;
+        }
+    }
+
+    /**
+     * Writes a matrix to a cache file, with 16-bit cells if all values fit
+     * @param cachePath Path to the cache file
+     * @param timesMatrix Matrix to write
+     * @param checksum Checksum of the CSV file
+     * @param length Length of the CSV file in bytes
+     * @throws IOException
+     */
+    private static void write(Path cachePath, int[][] timesMatrix, long checksum, long length) throws IOException {
+        int size = timesMatrix.length;
+        boolean fitsShort = true;
+
+        for (int[] row : timesMatrix) {
+            for (int value : row) {
+                fitsShort &= value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+            }
+        }
+        int cellBytes = fitsShort ? 2 : 4;
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size * size * cellBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(cellBytes).putLong(checksum).putLong(length);
+
+        for (int[] row : timesMatrix) {
+            for (int value : row) {
+                if (fitsShort) {
+                    buffer.putShort((short) value);
+                } else {
+                    buffer.putInt(value);
+                }
+            }
+        }
+        buffer.flip();
+
+        // Written to a temporary file first, so a run that is stopped halfway never leaves a broken cache behind
+        Path tempPath = Paths.get(cachePath + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * CRC32 checksum of a file, read in blocks of 1 MB
+     * @param path Path to the file
+     * @return Checksum of the file
+     * @throws IOException
+     */
+    private static long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+}
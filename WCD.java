@@ -1,6 +1,6 @@
 import java.io.IOException;
-import java.util.List;
 import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBConstr;
 import com.gurobi.gurobi.GRBEnv;
 import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBLinExpr;
@@ -12,7 +12,7 @@ import com.gurobi.gurobi.GRBVar;
  * 
  * @author 562606ad
  */
-public class WCD {
+public class WCD implements DemandOracle {
     public GRBModel model;
     public GRBEnv env;
 
@@ -24,65 +24,79 @@ public class WCD {
     public GRBVar[][] demandRealised;
     public GRBVar[][][] typeDemandRealised;
 
+    public GRBConstr[] excessBoundConstr;
+    public GRBConstr[] excessDemandConstr;
+    public GRBConstr[] accDemandConstr;
+    public GRBConstr demandRealisedSum;
+
     public int numDP;
     public int numDV;
     public int numSh;
+    public int numBus;
+    public int busCap;
+    public int pess;
     
     public double[] isPickUpLocationValues;
     public double[][] isClosestPickUpValues;
     public double[][][] tripsValues;
+    public int[] maxDemand;
 
     /**
-     * Constructor for the WCD model
-     * @param isPickUpLocation Array of binary variables indicating whether a demand point is a pick-up location
-     * @param isClosestPickUp Array of binary variables indicating whether a demand point is the closest pick-up location to another demand point
-     * @param trips Array of binary variables indicating whether a bus travels from a demand point to a shelter
+     * Constructor for the WCD model of a solution of the RTPL model
+     * @param plan Snapshot of the solution of the RTPL model
      * @param busCap Capacity of the buses
      * @param numBus Number of buses
      * @param pess Degree of pessimism
      * @param demandVectors List of the possible vectors of demand for each demand point
-     * @param longestWalk Maximum allowed walking time
-     * @param maxT Maximum allowed driving time for the buses
-     * @param times Matrix containing the driving times from each demand point to each shelter
-     * @param walkingTimes Matrix containing the walking times between each pair of nodes
-     * @param selectedDemandVectors List of selected demand vectors
-     * @throws IOException
+     * @param shelterCap Array of shelter capacities
+     */
+    public WCD(PlanSnapshot plan, int busCap, int numBus, int pess, DemandMatrix demandVectors, int[] shelterCap) {
+
+        this(plan.numDP, busCap, numBus, pess, demandVectors, shelterCap);
+
+        try {
+            update(plan);
+        } catch (GRBException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Constructor for a WCD model that is not yet bound to a solution of the RTPL model, the plan is set
+     * (and can be changed again later without rebuilding the model) with update
+     * @param numDP Number of demand points
+     * @param busCap Capacity of the buses
+     * @param numBus Number of buses
+     * @param pess Degree of pessimism
+     * @param demandVectors List of the possible vectors of demand for each demand point
+     * @param shelterCap Array of shelter capacities
      */
-    public WCD(GRBVar[] isPickUpLocation, GRBVar[][] isClosestPickUp, GRBVar[][][] trips,
-    int busCap, int numBus, int pess, List<Integer[]> demandVectors, int longestWalk,
-    int maxT, int[][] times, int[][] walkingTimes, List<Integer[]> selectedDemandVectors,
-    int[] shelterCap) throws IOException {
+    public WCD(int numDP, int busCap, int numBus, int pess, DemandMatrix demandVectors, int[] shelterCap) {
 
-        this.numDP = isPickUpLocation.length;
+        this.numDP = numDP;
         this.numDV = demandVectors.size(); // possible values for a demand point
         this.numSh = shelterCap.length;
+        this.numBus = numBus;
+        this.busCap = busCap;
+        this.pess = pess;
         
         this.excessDemand = new GRBVar[numDP];
         this.accumulatedDemand = new GRBVar[numDP];
         this.demand = new GRBVar[numDP];
         this.thereIsExcessDemand = new GRBVar[numDP];
         this.demandRealised = new GRBVar[numDP][numDV];
+        this.excessBoundConstr = new GRBConstr[numDP];
+        this.excessDemandConstr = new GRBConstr[numDP];
+        this.maxDemand = BigM.maxDemand(demandVectors);
+        this.accDemandConstr = new GRBConstr[numDP];
         this.isPickUpLocationValues = new double[numDP];
         this.isClosestPickUpValues = new double[numDP][numDP];
         this.tripsValues = new double[numBus][numDP][numSh];
 
         try {
-            this.env = new GRBEnv();
+            this.env = EnvPool.borrow();
             this.model = new GRBModel(env);
 
-            for (int i = 0; i < numDP; i++) {
-                isPickUpLocationValues[i] = isPickUpLocation[i].get(GRB.DoubleAttr.X);
-
-                for (int p = 0; p < numDP; p++) {
-                    isClosestPickUpValues[i][p] = isClosestPickUp[i][p].get(GRB.DoubleAttr.X);
-                }
-                for (int b = 0; b < numBus; b++) {
-                    for (int j = 0; j < numSh; j++) {
-                        tripsValues[b][i][j] = trips[b][i][j].get(GRB.DoubleAttr.X);
-                    }
-                }
-            }
-
             for (int i = 0; i < numDP; i++) {
                 excessDemand[i] = model.addVar(- GRB.INFINITY, GRB.INFINITY, 0, GRB.CONTINUOUS, "excessDemand" + i);
                 accumulatedDemand[i] = model.addVar(0, GRB.INFINITY, 0, GRB.CONTINUOUS, "accumulatedDemand" + i);
@@ -104,14 +118,16 @@ public class WCD {
 
             // Add constraints ---------------------------------------------------
 
-            // 1. Bound excess demand of all demand points that are not pick-up locations to 0
+            // 1. Bound excess demand of all demand points that are not pick-up locations to 0,
+            // with BigM.tight the coefficient is set per cluster by update
             for (int i = 0; i < numDP; i++) {
                 GRBLinExpr rhs = new GRBLinExpr();
                 rhs.addTerm(10000, thereIsExcessDemand[i]);
-                model.addConstr(excessDemand[i], GRB.LESS_EQUAL, rhs, "constraint1_" + i);
+                excessBoundConstr[i] = model.addConstr(excessDemand[i], GRB.LESS_EQUAL, rhs, "constraint1_" + i);
             }
 
-            // 2. Excess demand of a demand point is the difference between the capacity of the buses in the current solution and the new accumulated demand
+            // 2. Excess demand of a demand point is the difference between the capacity of the buses in the current solution and the new accumulated demand,
+            // the capacity is a constant that is moved to the right-hand side by update, and with BigM.tight also the coefficient
             for (int i = 0; i < numDP; i++) {
                 GRBLinExpr lhs = new GRBLinExpr();
                 GRBLinExpr rhs = new GRBLinExpr();
@@ -119,15 +135,10 @@ public class WCD {
                 lhs.addTerm(1, excessDemand[i]);
                 lhs.addTerm(- 1, accumulatedDemand[i]);
 
-                for (int b = 0; b < numBus; b++) {
-                    for (int j = 0; j < numSh; j++) {
-                        lhs.addConstant(busCap * tripsValues[b][i][j]);
-                    }
-                }
                 rhs.addConstant((10000));
                 rhs.addTerm(- 10000, thereIsExcessDemand[i]);
                 
-                model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "constraint2_" + i);
+                excessDemandConstr[i] = model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "constraint2_" + i);
             }
 
             // 3.
@@ -135,14 +146,9 @@ public class WCD {
                     model.addConstr(excessDemand[i], GRB.GREATER_EQUAL, 0, "excessDemandNonNegative_" + i);
             }
 
-            // 4. 
+            // 4. The coefficients of the demand are the closest pick-up locations of the current solution, set by update
             for (int p = 0; p < numDP; p++) {
-                GRBLinExpr rhs = new GRBLinExpr();
-
-                for (int i = 0; i < numDP; i++) {
-                    rhs.addTerm(isClosestPickUpValues[p][i], demand[i]);
-                }
-                model.addConstr(accumulatedDemand[p], GRB.EQUAL, rhs, "accDemandDef_" + p);
+                accDemandConstr[p] = model.addConstr(accumulatedDemand[p], GRB.EQUAL, new GRBLinExpr(), "accDemandDef_" + p);
             }
             
             // 5.
@@ -150,7 +156,7 @@ public class WCD {
                     GRBLinExpr rhs = new GRBLinExpr();
 
                     for (int s = 0; s < numDV; s++) {
-                        rhs.addTerm(demandVectors.get(s)[i], demandRealised[i][s]);
+                        rhs.addTerm(demandVectors.get(s, i), demandRealised[i][s]);
                     }
                     model.addConstr(demand[i], GRB.LESS_EQUAL, rhs, "demandChoice_" + i);
             }
@@ -173,29 +179,130 @@ public class WCD {
                     lhs.addTerm(1, demandRealised[i][s]);
                 }
             }
-            model.addConstr(lhs, GRB.LESS_EQUAL, pess, "demandRealisedSum");
+            demandRealisedSum = model.addConstr(lhs, GRB.LESS_EQUAL, pess, "demandRealisedSum");
 
         } catch (GRBException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Binds the WCD model to a new solution of the RTPL model
+     * @param plan Snapshot of the solution of the RTPL model
+     * @throws GRBException
+     */
+    @Override
+    public void update(PlanSnapshot plan) throws GRBException {
+        System.arraycopy(plan.isPickUpLocation, 0, isPickUpLocationValues, 0, numDP);
+        update(plan.isClosestPickUp, plan.trips);
+    }
+
+    /**
+     * Binds the WCD model to a new plan by changing, in place, the right-hand sides of constraint 2 (capacity of the
+     * buses at each pick-up location) and the coefficients of constraint 4 (which demand points walk to which pick-up location)
+     * @param isClosestPickUpValues Matrix with 1 if demand point i is assigned to pick-up location p, indexed [p][i]
+     * @param tripsValues Number of trips of each bus from a demand point to a shelter
+     * @throws GRBException
+     */
+    @Override
+    public void update(double[][] isClosestPickUpValues, double[][][] tripsValues) throws GRBException {
+        // The trips have one layer per bus, or a single layer with the trips of all buses of the bus-aggregated model
+        this.tripsValues = tripsValues;
+
+        for (int p = 0; p < numDP; p++) {
+            for (int i = 0; i < numDP; i++) {
+                if (isClosestPickUpValues[p][i] != this.isClosestPickUpValues[p][i]) {
+                    model.chgCoeff(accDemandConstr[p], demand[i], - isClosestPickUpValues[p][i]);
+                    this.isClosestPickUpValues[p][i] = isClosestPickUpValues[p][i];
+                }
+            }
+        }
+
+        for (int i = 0; i < numDP; i++) {
+            double capacity = 0;
+
+            for (int b = 0; b < tripsValues.length; b++) {
+                for (int j = 0; j < numSh; j++) {
+                    capacity += busCap * tripsValues[b][i][j];
+                }
+            }
+
+            if (BigM.tight) {
+                // The excess demand is at most the highest accumulated demand of the cluster minus the capacity (1),
+                // and without excess demand the accumulated demand only has to be at least 0 (2), so the capacity
+                // itself is big enough
+                double maxExcess = Math.max(0, BigM.maxAccumulatedDemand(isClosestPickUpValues[i], maxDemand) - capacity);
+
+                model.chgCoeff(excessBoundConstr[i], thereIsExcessDemand[i], - maxExcess);
+                model.chgCoeff(excessDemandConstr[i], thereIsExcessDemand[i], capacity);
+                excessDemandConstr[i].set(GRB.DoubleAttr.RHS, 0);
+            } else {
+                excessDemandConstr[i].set(GRB.DoubleAttr.RHS, 10000 - capacity);
+            }
+        }
+    }
+
+    /**
+     * Changes the degree of pessimism of the WCD model by changing the right-hand side of constraint 7
+     * @param pess Degree of pessimism
+     * @throws GRBException
+     */
+    public void setPess(int pess) throws GRBException {
+        this.pess = pess;
+        demandRealisedSum.set(GRB.DoubleAttr.RHS, pess);
+    }
+
+    @Override
+    public void setUncertainty(double level) throws GRBException {
+        setPess((int) level);
+    }
+
+    /**
+     * Get the worst-case demand of the last solve of the WCD model
+     * @return Demand of each demand point
+     * @throws GRBException
+     */
+    @Override
+    public int[] getDemand() throws GRBException {
+        double[] demandValues = model.get(GRB.DoubleAttr.X, demand);
+        int[] newDemand = new int[numDP];
+
+        // Rounded, a demand that is a binary at 0.99999 times 65 is 65 and not 64
+        for (int i = 0; i < numDP; i++) {
+            newDemand[i] = (int) Math.round(demandValues[i]);
+        }
+        return newDemand;
+    }
+
     /**
      * Solve the WCD model
      * @throws IOException
      * @throws GRBException
      */
     public void solve() throws IOException, GRBException {
-        model.optimize();
+        SolverProgress.optimize(model, "WCD", pess);
     }
 
     /**
-     * Dispose of the WCD model
+     * Dispose of the WCD model and give its environment back to the pool
      * @throws GRBException
      */
     public void dispose() throws GRBException {
+        if (env == null) {
+            return;
+        }
         model.dispose();
-        env.dispose();
+        EnvPool.release(env);
+        env = null;
+    }
+
+    /**
+     * Same as dispose, so the WCD model can be used in a try-with-resources statement
+     * @throws GRBException
+     */
+    @Override
+    public void close() throws GRBException {
+        dispose();
     }
 
     /**
@@ -203,8 +310,9 @@ public class WCD {
      * @return Objective value
      * @throws GRBException
      */
+    @Override
     public double getObjective() throws GRBException {
-        model.optimize();
+        SolverProgress.optimize(model, "WCD", pess);
         return model.get(GRB.DoubleAttr.ObjVal);
     }
 
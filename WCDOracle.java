@@ -0,0 +1,183 @@
+/**
+ * Exact combinatorial replacement of the WCD model. For a fixed plan the demand points are split into clusters,
+ * one per pick-up location, and at most pess demand points can switch from their nominal demand to another demand value.
+ * Within a cluster it is always best to switch the points with the largest deviations, so the excess demand of a cluster
+ * only depends on how many of its points switch, and the budget is divided over the clusters by dynamic programming
+ * 
+ * @author 562606ad
+ */
+public class WCDOracle implements DemandOracle {
+    public int numDP;
+    public int numDV;
+    public int numBus;
+    public int busCap;
+    public int pess;
+
+    public int[] nominal;
+    public int[] deviation;
+    public int[] worstValue;
+    public int[] clusterOf;
+    public double[] capacity;
+    public int[] demand;
+
+    /**
+     * Constructor for the WCD oracle
+     * @param numDP Number of demand points
+     * @param busCap Capacity of the buses
+     * @param numBus Number of buses
+     * @param pess Degree of pessimism
+     * @param demandVectors List of the possible vectors of demand for each demand point, the first one is the nominal demand
+     */
+    public WCDOracle(int numDP, int busCap, int numBus, int pess, DemandMatrix demandVectors) {
+        this.numDP = numDP;
+        this.numDV = demandVectors.size();
+        this.numBus = numBus;
+        this.busCap = busCap;
+        this.pess = pess;
+
+        this.nominal = new int[numDP];
+        this.deviation = new int[numDP];
+        this.worstValue = new int[numDP];
+        this.clusterOf = new int[numDP];
+        this.capacity = new double[numDP];
+
+        // Only the largest demand value of each point can be worth a unit of the budget
+        for (int i = 0; i < numDP; i++) {
+            nominal[i] = demandVectors.get(0, i);
+            worstValue[i] = nominal[i];
+
+            for (int s = 1; s < numDV; s++) {
+                worstValue[i] = Math.max(worstValue[i], demandVectors.get(s, i));
+            }
+            deviation[i] = worstValue[i] - nominal[i];
+        }
+    }
+
+    @Override
+    public void update(double[][] isClosestPickUpValues, double[][][] tripsValues) {
+        for (int p = 0; p < numDP; p++) {
+            capacity[p] = 0;
+
+            for (int b = 0; b < tripsValues.length; b++) {
+                for (int j = 0; j < tripsValues[b][p].length; j++) {
+                    capacity[p] += busCap * tripsValues[b][p][j];
+                }
+            }
+            for (int i = 0; i < numDP; i++) {
+                if (isClosestPickUpValues[p][i] > 0.5) {
+                    clusterOf[i] = p;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setUncertainty(double level) {
+        this.pess = (int) level;
+    }
+
+    @Override
+    public double getObjective() {
+        // Members of each cluster sorted by decreasing deviation
+        int[] clusterSize = new int[numDP];
+        int[] clusterStart = new int[numDP + 1];
+        int[] members = new int[numDP];
+
+        for (int i = 0; i < numDP; i++) {
+            clusterSize[clusterOf[i]]++;
+        }
+        for (int p = 0; p < numDP; p++) {
+            clusterStart[p + 1] = clusterStart[p] + clusterSize[p];
+        }
+        int[] next = clusterStart.clone();
+
+        for (int i = 0; i < numDP; i++) {
+            members[next[clusterOf[i]]++] = i;
+        }
+        for (int p = 0; p < numDP; p++) {
+            sortByDeviation(members, clusterStart[p], clusterStart[p + 1]);
+        }
+
+        // best[b] is the largest excess demand of the clusters seen so far using at most b switches,
+        // choice[p][b] the number of switches given to cluster p in that solution
+        double[] best = new double[pess + 1];
+        int[][] choice = new int[numDP][pess + 1];
+
+        for (int p = 0; p < numDP; p++) {
+            if (clusterSize[p] == 0) {
+                continue;
+            }
+            int maxK = Math.min(pess, clusterSize[p]);
+            double[] value = new double[maxK + 1];
+            double accumulated = 0;
+
+            for (int m = clusterStart[p]; m < clusterStart[p + 1]; m++) {
+                accumulated += nominal[members[m]];
+            }
+            for (int k = 0; k <= maxK; k++) {
+                if (k > 0) {
+                    accumulated += deviation[members[clusterStart[p] + k - 1]];
+                }
+                value[k] = Math.max(0, accumulated - capacity[p]);
+            }
+
+            double[] newBest = new double[pess + 1];
+
+            for (int b = 0; b <= pess; b++) {
+                newBest[b] = best[b] + value[0];
+
+                for (int k = 1; k <= Math.min(b, maxK); k++) {
+                    if (best[b - k] + value[k] > newBest[b]) {
+                        newBest[b] = best[b - k] + value[k];
+                        choice[p][b] = k;
+                    }
+                }
+            }
+            best = newBest;
+        }
+
+        // Backtrack the switches of each cluster
+        demand = new int[numDP];
+
+        System.arraycopy(nominal, 0, demand, 0, numDP);
+        int budget = pess;
+
+        for (int p = numDP - 1; p >= 0; p--) {
+            int k = choice[p][budget];
+
+            for (int m = clusterStart[p]; m < clusterStart[p] + k; m++) {
+                demand[members[m]] = worstValue[members[m]];
+            }
+            budget -= k;
+        }
+        return best[pess];
+    }
+
+    @Override
+    public int[] getDemand() {
+        return demand;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Insertion sort of a range of demand points by decreasing deviation, clusters are small
+     * @param members Array of demand points
+     * @param from First index of the range
+     * @param to Index after the last index of the range
+     */
+    private void sortByDeviation(int[] members, int from, int to) {
+        for (int m = from + 1; m < to; m++) {
+            int point = members[m];
+            int n = m - 1;
+
+            while (n >= from && deviation[members[n]] < deviation[point]) {
+                members[n + 1] = members[n];
+                n--;
+            }
+            members[n + 1] = point;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBLinExpr;
+import com.gurobi.gurobi.GRBVar;
+
+/**
+ * Callback that checks every new incumbent of the RTPL or ZDRTPL model against the worst-case demand and cuts it off
+ * with lazy constraints, so the robust model is solved in a single branch-and-bound tree. The progress of the solve is
+ * sampled as by a ProgressCallback
+ *
+ * @author 562606ad
+ */
+public class WorstCaseCallback extends ProgressCallback {
+    public GRBVar[][] isClosestPickUp;
+    public GRBVar[][][] trips;
+    public DemandOracle oracle;
+    public DemandMatrix cutDemandVectors;
+
+    public int numDP;
+    public int numBus;
+    public int busCap;
+    public int numCuts;
+
+    /**
+     * Constructor for the callback
+     * @param model Name of the model, RTPL or ZDRTPL
+     * @param level Degree of pessimism or correlation parameter
+     * @param isClosestPickUp Variables indicating whether a demand point walks to a pick-up location, indexed [p][i]
+     * @param trips Variables with the number of trips of each bus from a demand point to a shelter
+     * @param busCap Capacity of the buses
+     * @param oracle Worst-case demand oracle
+     */
+    public WorstCaseCallback(String model, double level, GRBVar[][] isClosestPickUp, GRBVar[][][] trips, int busCap,
+    DemandOracle oracle) {
+        super(model, level);
+        this.isClosestPickUp = isClosestPickUp;
+        this.trips = trips;
+        this.busCap = busCap;
+        this.oracle = oracle;
+        this.cutDemandVectors = new DemandMatrix(isClosestPickUp.length);
+        this.numDP = isClosestPickUp.length;
+        this.numBus = trips.length;
+    }
+
+    @Override
+    protected void callback() {
+        super.callback();
+
+        if (where != GRB.CB_MIPSOL) {
+            return;
+        }
+
+        try {
+            double[][] isClosestPickUpValues = getSolution(isClosestPickUp);
+            double[][][] tripsValues = new double[numBus][][];
+
+            for (int b = 0; b < numBus; b++) {
+                tripsValues[b] = getSolution(trips[b]);
+            }
+            oracle.update(isClosestPickUpValues, tripsValues);
+
+            if (oracle.getObjective() <= 0) {
+                return;
+            }
+            int[] newDemand = oracle.getDemand();
+            cutDemandVectors.append(newDemand);
+
+            // Demand Point Satisfaction (1) with the Accumulated demand (10) of the new demand vector substituted,
+            // only for the pick-up locations where the incumbent has excess demand
+            for (int p = 0; p < numDP; p++) {
+                double excess = 0;
+
+                for (int i = 0; i < numDP; i++) {
+                    excess += newDemand[i] * isClosestPickUpValues[p][i];
+                }
+                for (int b = 0; b < numBus; b++) {
+                    for (int j = 0; j < tripsValues[b][p].length; j++) {
+                        excess -= busCap * tripsValues[b][p][j];
+                    }
+                }
+                if (excess <= 0) {
+                    continue;
+                }
+                GRBLinExpr lhs = new GRBLinExpr();
+
+                for (int i = 0; i < numDP; i++) {
+                    lhs.addTerm(newDemand[i], isClosestPickUp[p][i]);
+                }
+                for (int b = 0; b < numBus; b++) {
+                    for (int j = 0; j < trips[b][p].length; j++) {
+                        lhs.addTerm(- busCap, trips[b][p][j]);
+                    }
+                }
+                addLazy(lhs, GRB.LESS_EQUAL, 0);
+                numCuts++;
+            }
+        } catch (GRBException e) {
+            e.printStackTrace();
+            abort();
+        }
+    }
+}
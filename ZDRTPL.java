@@ -1,22 +1,53 @@
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBConstr;
 import com.gurobi.gurobi.GRBEnv;
 import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBLinExpr;
 import com.gurobi.gurobi.GRBModel;
 import com.gurobi.gurobi.GRBVar;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 /**
  * ZDRTPL class containing the model for the SRTPL problem
  * 
  * @author 562606ad
  */
-public class ZDRTPL {
+public class ZDRTPL implements AutoCloseable {
+    /**
+     * Use the combinatorial ZDWCDOracle instead of the ZDWCD model to find the worst-case demand
+     */
+    public static boolean exactOracle = false;
+
+    /**
+     * Solve the robust model in a single branch-and-bound tree with the worst-case demand as lazy constraints,
+     * instead of re-optimizing the model for every demand vector
+     */
+    public static boolean lazyCuts = false;
+
+    /**
+     * Remove pick-up locations that are dominated by another pick-up location, see PickUpCandidates
+     */
+    public static boolean pruneDominated = false;
+
+    /**
+     * Use the bus-aggregated formulation, with the number of buses at each pick-up location and the number of trips
+     * from each pick-up location to each shelter instead of variables per bus. All buses are identical, so this removes
+     * the symmetry between the numBus! permutations of the buses. The solution is split into schedules per bus afterwards.
+     * The time constraints only relax those of the buses, so if the split fails the per-bus model is solved instead
+     */
+    public static boolean aggregateBuses = false;
+
+    /**
+     * Also reject the demand vectors that are dominated by a selected demand vector, and remove the selected demand
+     * vectors that a new demand vector dominates, see ScenarioPool. Equal demand vectors are always rejected
+     */
+    public static boolean pruneScenarios = false;
+
     public GRBModel model;
     public GRBEnv env;
 
@@ -25,7 +56,9 @@ public class ZDRTPL {
     public GRBVar[][][] trips;
     public GRBVar[][] isClosestPickUp;
     public GRBVar[] distanceToPU;
+    public GRBVar noPickUp;
     public GRBVar[][] accDemand;
+    public GRBConstr[][] scenarioConstr;
     
     public int numBus;
     public int busCap;
@@ -37,8 +70,12 @@ public class ZDRTPL {
     public int[] shelterCap;
     public int[][] times;
     public int[][] walkingTimes;
-    public List<Integer[]> demandVectors;
-    public List<Integer[]> selectedDemandVectors;
+    public DemandMatrix demandVectors;
+    public DemandMatrix selectedDemandVectors;
+    public ScenarioPool scenarioPool;
+    public PickUpCandidates candidates;
+    public boolean aggregated;
+    public long buildTime;
     
     /**
      * Constructor for the ZDRTPL class
@@ -54,21 +91,13 @@ public class ZDRTPL {
      * @param parameter Parameter for the ZDRTPL model
      */
     public ZDRTPL(int longestWalk, int maxT, int[][] times,
-    int[][] walkingTimes, List<Integer[]> demandVectors, List<Integer[]> selectedDemandVectors, 
+    int[][] walkingTimes, DemandMatrix demandVectors, DemandMatrix selectedDemandVectors, 
     int[] shelterCap, int numBus, int busCap, double parameter) {
 
-        this.numDP = demandVectors.get(0).length;
+        this.numDP = demandVectors.numDP;
         this.numSh = shelterCap.length;
         this.parameter = parameter;
 
-        // Decision Variables
-        this.isPickUpLocation = new GRBVar[numDP];
-        this.busAllocation = new GRBVar[numBus][numDP];
-        this.trips = new GRBVar[numBus][numDP][numSh];
-        this.isClosestPickUp = new GRBVar[numDP][numDP];
-        this.distanceToPU = new GRBVar[numDP];
-        this.accDemand = new GRBVar[numDP][selectedDemandVectors.size()];
-
         // Parameters
         this.longestWalk = longestWalk;
         this.maxT = maxT;
@@ -79,186 +108,270 @@ public class ZDRTPL {
         this.shelterCap = shelterCap;
         this.numBus = numBus;
         this.busCap = busCap;
+        this.aggregated = aggregateBuses;
+
+        // Only pairs within walking distance of a candidate pick-up location get variables and constraints
+        this.candidates = new PickUpCandidates(walkingTimes, times, longestWalk, pruneDominated);
+
+        // The selected demand vectors that are equal to or dominated by another one do not become constraints
+        this.scenarioPool = new ScenarioPool(demandVectors);
+
+        for (int d = 0; d < selectedDemandVectors.size(); d++) {
+            int[] removed = scenarioPool.offer(selectedDemandVectors.row(d), pruneScenarios);
+
+            if (removed == null) {
+                selectedDemandVectors.remove(d--);
+                continue;
+            }
+            for (int k = removed.length - 1; k >= 0; k--) {
+                selectedDemandVectors.remove(removed[k]);
+                d--;
+            }
+        }
 
         try {
-            this.env = new GRBEnv();
-            this.model = new GRBModel(this.env);
+            this.env = EnvPool.borrow();
+            build();
+        } catch (GRBException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Constructor for the ZDRTPL model of a network instance, with the nominal, low and high demand of the instance
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param selectedDemandVectors List of selected demand vectors
+     * @param numBus Number of buses
+     * @param busCap Capacity of each bus
+     * @param parameter Parameter for the ZDRTPL model
+     */
+    public ZDRTPL(NetworkInstance network, int longestWalk, int maxT, DemandMatrix selectedDemandVectors,
+    int numBus, int busCap, double parameter) {
+        this(longestWalk, maxT, network.getTimesDPToShelters(), network.getWalkingTimes(), network.getDemandValues(),
+        selectedDemandVectors, network.getShelterCapacities(), numBus, busCap, parameter);
+    }
+
+    /**
+     * Builds the variables and constraints of the model in the environment of the model, per bus or bus-aggregated
+     * @throws GRBException
+     */
+    private void build() throws GRBException {
+        long startTime = System.nanoTime();
 
-            // Add variables
-            for (int i = 0; i < this.numDP; i++) {
-                isPickUpLocation[i] = this.model.addVar(0, 1, 0, GRB.BINARY, "pickUpLoc_" + i);
-                distanceToPU[i] = this.model.addVar(0, GRB.INFINITY, 0, GRB.CONTINUOUS, "distanceToPU_" + i);
+        // Decision Variables, with a single layer of bus and trip counts in the bus-aggregated model
+        int numLayers = aggregated ? 1 : numBus;
 
-                for (int d = 0; d < selectedDemandVectors.size(); d++) {
-                    accDemand[i][d] = this.model.addVar(0, GRB.INFINITY, 0, GRB.CONTINUOUS, "accDemand_" + i + "_" + d);
-                }
-                for (int j = 0; j < numDP; j++) {
-                    isClosestPickUp[i][j] = this.model.addVar(0, 1, 0, GRB.BINARY, "closestPickUp_" + i + "_" + j);
-                }
+        this.isPickUpLocation = new GRBVar[numDP];
+        this.busAllocation = new GRBVar[numLayers][numDP];
+        this.trips = new GRBVar[numLayers][numDP][numSh];
+        this.isClosestPickUp = new GRBVar[numDP][numDP];
+        this.distanceToPU = new GRBVar[numDP];
+        this.accDemand = new GRBVar[numDP][selectedDemandVectors.size()];
+        this.scenarioConstr = new GRBConstr[selectedDemandVectors.size()][2 * numDP];
+
+        this.model = new GRBModel(this.env);
+
+        // Add variables, the pairs that can never be used share one variable fixed to 0, so the matrix of
+        // closest pick-up location variables stays complete for the oracles, the starts and the callbacks
+        this.noPickUp = this.model.addVar(0, 0, 0, GRB.BINARY, "noPickUp");
+
+        for (int i = 0; i < this.numDP; i++) {
+            isPickUpLocation[i] = this.model.addVar(0, candidates.isCandidate[i] ? 1 : 0, 0, GRB.BINARY, "pickUpLoc_" + i);
+            distanceToPU[i] = this.model.addVar(0, GRB.INFINITY, 0, GRB.CONTINUOUS, "distanceToPU_" + i);
+
+            for (int j = 0; j < numDP; j++) {
+                isClosestPickUp[i][j] = candidates.canWalk[i][j]
+                ? this.model.addVar(0, 1, 0, GRB.BINARY, "closestPickUp_" + i + "_" + j) : noPickUp;
             }
+        }
 
-            for (int b = 0; b < numBus; b++) {
-                for (int i = 0; i < numDP; i++) {
-                    busAllocation[b][i] = this.model.addVar(0, 1, 0, GRB.BINARY, "busAlloc_" + b + "_" + i);
+        for (int b = 0; b < trips.length; b++) {
+            for (int i = 0; i < numDP; i++) {
+                busAllocation[b][i] = aggregated ? this.model.addVar(0, numBus, 0, GRB.INTEGER, "numBuses_" + i)
+                : this.model.addVar(0, 1, 0, GRB.BINARY, "busAlloc_" + b + "_" + i);
 
-                    for (int j = 0; j < numSh; j++) {
-                        trips[b][i][j] = this.model.addVar(0, GRB.INFINITY, 0, GRB.INTEGER, "numTrips_" + b + "_" + i + "_" + j);
-                    }
+                // In the bus-aggregated model a trip that takes longer than maxT is not cut off by constraint 12
+                for (int j = 0; j < numSh; j++) {
+                    trips[b][i][j] = this.model.addVar(0, aggregated && times[i][j] > maxT ? 0 : GRB.INFINITY, 0,
+                    GRB.INTEGER, "numTrips_" + b + "_" + i + "_" + j);
                 }
             }
+        }
 
-            // Define objective function
-            GRBLinExpr objExpr = new GRBLinExpr();
+        // Define objective function
+        GRBLinExpr objExpr = new GRBLinExpr();
 
-            for (int b = 0; b < numBus; b++) {
-                for (int i = 0; i < numDP; i++) {
-                    for (int j = 0; j < numSh; j++) {
-                        objExpr.addTerm(times[i][j], trips[b][i][j]);
-                    }
+        for (int b = 0; b < trips.length; b++) {
+            for (int i = 0; i < numDP; i++) {
+                for (int j = 0; j < numSh; j++) {
+                    objExpr.addTerm(times[i][j], trips[b][i][j]);
                 }
             }
-            this.model.setObjective(objExpr, GRB.MINIMIZE);
+        }
+        this.model.setObjective(objExpr, GRB.MINIMIZE);
 
-            // Add constraints ---------------------------------------------------
+        // Add constraints ---------------------------------------------------
 
-            // 1. Demand Point Satisfaction
-            for (int d = 0; d < selectedDemandVectors.size(); d++) {
-                for (int i = 0; i < numDP; i++) {
-                    GRBLinExpr constraintExpr = new GRBLinExpr();
+        // 1. and 10. Demand Point Satisfaction and Accumulated demand, for every selected demand vector
+        for (int d = 0; d < selectedDemandVectors.size(); d++) {
+            addScenarioConstraints(d);
+        }
 
-                    for (int b = 0; b < numBus; b++) {
-                        for (int j = 0; j < numSh; j++) {
-                            constraintExpr.addTerm(busCap, trips[b][i][j]);
-                        }
-                    }
-                    this.model.addConstr(constraintExpr, GRB.GREATER_EQUAL, accDemand[i][d], "DemandSatisfaction_" + i + "_" + d);
+        // 2. Shelter Capacity
+        for (int j = 0; j < numSh; j++) {
+            GRBLinExpr constraintExpr = new GRBLinExpr();
+
+            for (int b = 0; b < trips.length; b++) {
+                for (int i = 0; i < numDP; i++) {
+                    constraintExpr.addTerm(busCap, trips[b][i][j]);
                 }
             }
+            this.model.addConstr(constraintExpr, GRB.LESS_EQUAL, shelterCap[j], "Capacity_" + j);
+        }
 
-            // 2. Shelter Capacity
-            for (int j = 0; j < numSh; j++) {
-                GRBLinExpr constraintExpr = new GRBLinExpr();
+        // 3. Bus to only 1 PUP, in the bus-aggregated model all buses are at some PUP
+        for (int b = 0; b < trips.length; b++) {
+            GRBLinExpr constraintExpr = new GRBLinExpr();
 
-                for (int b = 0; b < numBus; b++) {
-                    for (int i = 0; i < numDP; i++) {
-                        constraintExpr.addTerm(busCap, trips[b][i][j]);
-                    }
-                }
-                this.model.addConstr(constraintExpr, GRB.LESS_EQUAL, shelterCap[j], "Capacity_" + j);
+            for (int i = 0; i < numDP; i++) {
+                constraintExpr.addTerm(1, busAllocation[b][i]);
             }
+            this.model.addConstr(constraintExpr, GRB.EQUAL, aggregated ? numBus : 1, "BusToOnePUP_" + b);
+        }
 
-            // 3. Bus to only 1 PUP
-            for (int b = 0; b < numBus; b++) {
-                GRBLinExpr constraintExpr = new GRBLinExpr();
+        // 4. Only PUP have bus
+        for (int i = 0; i < numDP; i++) {
+            GRBLinExpr lhs = new GRBLinExpr();
+            GRBLinExpr rhs = new GRBLinExpr();
 
-                for (int i = 0; i < numDP; i++) {
-                    constraintExpr.addTerm(1, busAllocation[b][i]);
-                }
-                this.model.addConstr(constraintExpr, GRB.EQUAL, 1, "BusToOnePUP_" + b);
+            rhs.addTerm(numBus, isPickUpLocation[i]);
+
+            for (int b = 0; b < trips.length; b++) {
+                lhs.addTerm(1, busAllocation[b][i]);
             }
+            this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "OnlyPUPHaveBus_" + i);
+        }
 
-            // 4. Only PUP have bus
-            for (int i = 0; i < numDP; i++) {
+        // 5. Only if bus is allocated to PUP, then trips are made
+        int[] maxTrips = BigM.maxTrips(maxT, times, shelterCap, busCap);
+
+        for (int i = 0; i < numDP; i++) {
+            for (int b = 0; b < trips.length; b++) {
                 GRBLinExpr lhs = new GRBLinExpr();
                 GRBLinExpr rhs = new GRBLinExpr();
 
-                rhs.addTerm(numBus, isPickUpLocation[i]);
-
-                for (int b = 0; b < numBus; b++) {
-                    lhs.addTerm(1, busAllocation[b][i]);
+                for (int j = 0; j < numSh; j++) {
+                    lhs.addTerm(1, trips[b][i][j]);
                 }
-                this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "OnlyPUPHaveBus_" + i);
+                rhs.addTerm(BigM.tight ? maxTrips[i] : GRB.MAXINT, busAllocation[b][i]);
+
+                this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "BusAllocToPUP_" + i + "_" + b);
             }
+        }
 
-            // 5. Only if bus is allocated to PUP, then trips are made
-            for (int i = 0; i < numDP; i++) {
-                for (int b = 0; b < numBus; b++) {
-                    GRBLinExpr lhs = new GRBLinExpr();
-                    GRBLinExpr rhs = new GRBLinExpr();
+        // 6. Defines the distance to the closest pick-up location
+        for (int i = 0; i < numDP; i++) {
+            GRBLinExpr lhs = new GRBLinExpr();
+            GRBLinExpr rhs = new GRBLinExpr();
 
-                    for (int j = 0; j < numSh; j++) {
-                        lhs.addTerm(1, trips[b][i][j]);
-                    }
-                    rhs.addTerm(GRB.MAXINT, busAllocation[b][i]);
+            lhs.addTerm(1, distanceToPU[i]);
 
-                    this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "BusAllocToPUP_" + i + "_" + b);
+            for (int p = 0; p < numDP; p++) {
+                if (candidates.canWalk[p][i]) {
+                    rhs.addTerm(walkingTimes[i][p], isClosestPickUp[p][i]);
                 }
             }
+            this.model.addConstr(lhs, GRB.EQUAL, rhs, "DistanceToClosestPU_" + i);
+        }
 
-            // 6. Defines the distance to the closest pick-up location
-            for (int i = 0; i < numDP; i++) {
+        // 7. Forces the distance to the one to closest pick-up location, redundant for a pick-up location beyond
+        // the longest walk (11)
+        int[] maxWalk = BigM.maxWalk(walkingTimes, candidates);
+
+        for (int i = 0; i < numDP; i++) {
+            double bigM = BigM.tight ? maxWalk[i] : GRB.MAXINT;
+
+            for (int p = 0; p < numDP; p++) {
+                if (!candidates.canWalk[p][i]) {
+                    continue;
+                }
                 GRBLinExpr lhs = new GRBLinExpr();
                 GRBLinExpr rhs = new GRBLinExpr();
 
-                lhs.addTerm(1, distanceToPU[i]);
+                lhs.addTerm(1.0, distanceToPU[i]);
+                rhs.addTerm(walkingTimes[i][p], isPickUpLocation[p]);
+                rhs.addConstant(bigM);
+                rhs.addTerm(- bigM, isPickUpLocation[p]);
 
-                for (int p = 0; p < numDP; p++) {
-                    rhs.addTerm(walkingTimes[i][p], isClosestPickUp[p][i]);
-                }
-                this.model.addConstr(lhs, GRB.EQUAL, rhs, "DistanceToClosestPU_" + i);
+                this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "DistanceToPU_" + i + "_" + p);
             }
+        }
 
-            // 7. Forces the distance to the one to closest pick-up location
-            for (int i = 0; i < numDP; i++) {
-                for (int p = 0; p < numDP; p++) {
-                    GRBLinExpr lhs = new GRBLinExpr();
-                    GRBLinExpr rhs = new GRBLinExpr();
+        // 8. Makes sure every demand point has a pick-up location
+        for (int i = 0; i < numDP; i++) {
 
-                    lhs.addTerm(1.0, distanceToPU[i]);
-                    rhs.addTerm(walkingTimes[i][p], isPickUpLocation[p]);
-                    rhs.addConstant(GRB.MAXINT);
-                    rhs.addTerm(-GRB.MAXINT, isPickUpLocation[p]);
+            GRBLinExpr constraintExpr = new GRBLinExpr();
 
-                    this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "DistanceToPU_" + i + "_" + p);
+            for (int p = 0; p < numDP; p++) {
+                if (candidates.canWalk[p][i]) {
+                    constraintExpr.addTerm(1, isClosestPickUp[p][i]);
                 }
             }
+            this.model.addConstr(constraintExpr, GRB.EQUAL, 1, "HasClosestPU_" + i);
+        }
 
-            // 8. Makes sure every demand point has a pick-up location
-            for (int i = 0; i < numDP; i++) {
-
+        // 9. Makes sure that only pick-up locations can be the closest pick-up location to a demand point
+        for (int i = 0; i < numDP; i++) {
+            for (int p = 0; p < numDP; p++) {
+                if (!candidates.canWalk[p][i]) {
+                    continue;
+                }
                 GRBLinExpr constraintExpr = new GRBLinExpr();
+                constraintExpr.addTerm(1, isClosestPickUp[p][i]);
 
-                for (int p = 0; p < numDP; p++) {
-                    constraintExpr.addTerm(1, isClosestPickUp[p][i]);
-                }
-                this.model.addConstr(constraintExpr, GRB.EQUAL, 1, "HasClosestPU_" + i);
+                this.model.addConstr(constraintExpr, GRB.LESS_EQUAL, isPickUpLocation[p], "CanBeClosestPU_" + i + "_" + p);
             }
+        }
 
-            // 9. Makes sure that only pick-up locations can be the closest pick-up location to a demand point
+        // 11.
+        for (int i = 0; i < numDP; i++) {
+            GRBLinExpr constrExpr = new GRBLinExpr();
+            constrExpr.addTerm(1, distanceToPU[i]);
+
+            this.model.addConstr(constrExpr, GRB.LESS_EQUAL, longestWalk, "MaxWalk_" + i);
+        }
+
+        // 12. Maximum driving time of every bus, in the bus-aggregated model of all buses at a PUP together
+        if (aggregated) {
             for (int i = 0; i < numDP; i++) {
-                for (int p = 0; p < numDP; p++) {
-                    GRBLinExpr constraintExpr = new GRBLinExpr();
-                    constraintExpr.addTerm(1, isClosestPickUp[p][i]);
+                GRBLinExpr lhs = new GRBLinExpr();
+                GRBLinExpr rhs = new GRBLinExpr();
 
-                    this.model.addConstr(constraintExpr, GRB.LESS_EQUAL, isPickUpLocation[p], "CanBeClosestPU_" + i + "_" + p);
+                for (int j = 0; j < numSh; j++) {
+                    lhs.addTerm(times[i][j], trips[0][i][j]);
                 }
-            }
+                rhs.addTerm(maxT, busAllocation[0][i]);
+
+                this.model.addConstr(lhs, GRB.LESS_EQUAL, rhs, "MaxTime_" + i);
 
-            // 10. Accumulated demand
-            for (int d = 0; d < selectedDemandVectors.size(); d++) {
-                for (int p = 0; p < numDP; p++) {
-                    GRBLinExpr lhs = new GRBLinExpr();
-                    GRBLinExpr rhs = new GRBLinExpr();
+                // The total time only relaxes the time of every bus, a bus makes at most maxT / times[i][j] trips
+                // to shelter j
+                for (int j = 0; j < numSh; j++) {
+                    if (times[i][j] > 0 && times[i][j] <= maxT) {
+                        GRBLinExpr tripsExpr = new GRBLinExpr();
+                        GRBLinExpr busesExpr = new GRBLinExpr();
 
-                    lhs.addTerm(1, accDemand[p][d]);
+                        tripsExpr.addTerm(1, trips[0][i][j]);
+                        busesExpr.addTerm(maxT / times[i][j], busAllocation[0][i]);
 
-                    for (int i = 0; i < numDP; i++) {
-                        rhs.addTerm(selectedDemandVectors.get(d)[i], isClosestPickUp[p][i]);
+                        this.model.addConstr(tripsExpr, GRB.LESS_EQUAL, busesExpr, "MaxTrips_" + i + "_" + j);
                     }
-                    this. model.addConstr(lhs, GRB.EQUAL, rhs, "DemandDef_" + p + "_" + d);
                 }
             }
-
-            // 11.
-            for (int i = 0; i < numDP; i++) {
-                GRBLinExpr constrExpr = new GRBLinExpr();
-                constrExpr.addTerm(1, distanceToPU[i]);
-
-                this.model.addConstr(constrExpr, GRB.LESS_EQUAL, longestWalk, "MaxWalk_" + i);
-            }
-
-            // 12.
-            for (int b = 0; b < numBus; b++) {
+        } else {
+            for (int b = 0; b < trips.length; b++) {
                 GRBLinExpr lhs = new GRBLinExpr();
                 for (int i = 0; i < numDP; i++) {
                     for (int j = 0; j < numSh; j ++) {
@@ -267,10 +380,8 @@ public class ZDRTPL {
                 }
                 this.model.addConstr(lhs, GRB.LESS_EQUAL, maxT, "MaxTime_" + b);
             }
-            
-        } catch (GRBException e) {
-            e.printStackTrace();
         }
+        this.buildTime = System.nanoTime() - startTime;
     }
 
     /**
@@ -279,222 +390,409 @@ public class ZDRTPL {
      * @throws GRBException
      */
     public void solve() throws IOException, GRBException {
-        this.model.optimize();
+        SolverProgress.optimize(model, "ZDRTPL", parameter);
     }
 
     /**
-     * Write the model to a file
-     */
-    public void write() {
-        try {
-            this.model.write("ZDRTPL.lp");
-        } catch (GRBException e) {
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * Write the results to an Excel file
-     * @param duration Duration of the optimization process
-     * @param count Number of the run
+     * Adds the accumulated demand variables of the demand vector at index d of the selected demand vectors,
+     * together with its Demand Point Satisfaction (1) and Accumulated demand (10) constraints
+     * @param d Index of the demand vector in the selected demand vectors
      * @throws GRBException
-     * @throws IOException
      */
-    public void writeToExcel(long duration, int count) throws GRBException, IOException {
-        // Create a new Excel workbook
-        Workbook workbook = new XSSFWorkbook();
-
-        // Create a new sheet for the results
-        Sheet sheet = workbook.createSheet("Results_" + parameter + "_" + count);
-
-        // Create a header row
-        Row headerRow = sheet.createRow(0);
-        headerRow.createCell(0).setCellValue("Bus");
-        headerRow.createCell(1).setCellValue("Demand Point");
-        headerRow.createCell(2).setCellValue("Shelter");
-        headerRow.createCell(3).setCellValue("Trips");
-        headerRow.createCell(4).setCellValue("Accumulated Demand");
-        headerRow.createCell(5).setCellValue("Time (min)");
-        headerRow.createCell(6).setCellValue("Duration (ms)");
-        
-        
-        // Write the results to the sheet
-        int k = 0;
-        int rowIndex = 1;
-        int d = selectedDemandVectors.size() - 1;
-        for (int b = 0; b < numBus; b++) {
-            for (int i = 0; i < numDP; i++) {
-                if (busAllocation[b][i].get(GRB.DoubleAttr.X) == 1.0) {
-                    if (isPickUpLocation[i].get(GRB.DoubleAttr.X) == 1.0) {
-                        for (int j = 0; j < numSh; j++) {
-                            if (trips[b][i][j].get(GRB.DoubleAttr.X) > 0.0) {
-                                Row dataRow = sheet.createRow(rowIndex);
-                                dataRow.createCell(0).setCellValue(b);
-                                dataRow.createCell(1).setCellValue(i);
-                                dataRow.createCell(2).setCellValue(j);
-                                dataRow.createCell(3).setCellValue(trips[b][i][j].get(GRB.DoubleAttr.X));
-                                dataRow.createCell(4).setCellValue(accDemand[i][d].get(GRB.DoubleAttr.X));
-                                if (k < 1) {
-                                    dataRow.createCell(5).setCellValue(model.get(GRB.DoubleAttr.ObjVal));
-                                    dataRow.createCell(6).setCellValue(duration);
-                                    k++;
-                                }
-                                rowIndex++;
-                            }
-                        }
-                    }
+    private void addScenarioConstraints(int d) throws GRBException {
+        for (int i = 0; i < numDP; i++) {
+            accDemand[i][d] = this.model.addVar(0, GRB.INFINITY, 0, GRB.CONTINUOUS, "accDemand_" + i + "_" + d);
+        }
+
+        // 1. Demand Point Satisfaction
+        for (int i = 0; i < numDP; i++) {
+            GRBLinExpr constraintExpr = new GRBLinExpr();
+
+            for (int b = 0; b < trips.length; b++) {
+                for (int j = 0; j < numSh; j++) {
+                    constraintExpr.addTerm(busCap, trips[b][i][j]);
                 }
             }
+            scenarioConstr[d][i] = this.model.addConstr(constraintExpr, GRB.GREATER_EQUAL, accDemand[i][d],
+            "DemandSatisfaction_" + i + "_" + d);
         }
-        // Create a new Excel file
-        try (FileOutputStream fileOut = new FileOutputStream("ZDRTPL_" + parameter + "_" + count + "_Results.xlsx")) {
-            workbook.write(fileOut);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        // Dispose of the workbook
-        workbook.close();
-    }
 
-    /**
-     * Dispose of the model and environment
-     * @throws GRBException
-     */
-    public void dispose() throws GRBException {
-        model.dispose();
-        env.dispose();
-    }
+        // 10. Accumulated demand
+        for (int p = 0; p < numDP; p++) {
+            GRBLinExpr lhs = new GRBLinExpr();
+            GRBLinExpr rhs = new GRBLinExpr();
+
+            lhs.addTerm(1, accDemand[p][d]);
 
-    /**
-     * Print the results of the model
-     * @throws GRBException
-     */
-    public void printResults() throws GRBException {
-        for (int b = 0; b < numBus; b++) {
             for (int i = 0; i < numDP; i++) {
-                if (busAllocation[b][i].get(GRB.DoubleAttr.X) == 1.0) {
-                    if (isPickUpLocation[i].get(GRB.DoubleAttr.X) == 1.0) {
-                        for (int j = 0; j < numSh; j++) {
-                            if (trips[b][i][j].get(GRB.DoubleAttr.X) > 0.0) {
-                                System.out.println("Bus " + b + " picks up at demand point " + i + " and drops off at shelter " + j + " " + trips[b][i][j].get(GRB.DoubleAttr.X) + " times.");
-                            }
-                        }
-                    }
+                if (candidates.canWalk[p][i]) {
+                    rhs.addTerm(selectedDemandVectors.get(d, i), isClosestPickUp[p][i]);
                 }
             }
+            scenarioConstr[d][numDP + p] = this.model.addConstr(lhs, GRB.EQUAL, rhs, "DemandDef_" + p + "_" + d);
         }
-        System.out.println("Objective value: " + this.model.get(GRB.DoubleAttr.ObjVal));
     }
 
     /**
-     * Runs the RTPL model with demand uncertainty 1 time for 1 parameter value
-     * @param nominalDemand Array of nominal demand values
-     * @param lowDemand Array of low demand values
-     * @param highDemand Array of high demand values
-     * @param shelterCapacities Array of shelter capacities
-     * @param walkingTimesPath Path to the walking times file
-     * @param drivingTimesPath Path to the driving times file
-     * @param longestWalk Maximum allowed walking distance
-     * @param maxT Maximum allowed driving time for each bus
-     * @param busCap Capacity of each bus
-     * @param numBus Number of buses
-     * @param parameter Parameter for the ZDRTPL model
-     * @param size Number of demand points
-     * @param count Number of the run
-     * @throws IOException
+     * Adds a new demand vector to the selected demand vectors and extends the existing model with only its
+     * accumulated demand column and constraints, so the model does not have to be rebuilt. The demand vector is
+     * rejected if it is already selected, and with pruneScenarios also if a selected demand vector dominates it;
+     * the selected demand vectors that it dominates are then removed from the model
+     * @param newDemand Demand vector to add
+     * @return True if the demand vector was added, false if it was rejected
      * @throws GRBException
      */
-    public static void runZDRTPL(Integer[] nominalDemand, Integer[] lowDemand, Integer[] highDemand,
-    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
-    int busCap, int numBus, double parameter, int size, int count) throws IOException, GRBException {
-        
-        /* types of nodes in the network:
-        1 = Residential
-        2 = Industrial
-        3 = Leisure
-        4 = Office
-        5 = Commerical */
-        int[] types = {1, 2, 3, 4, 5};
-        // int[] assignment = new int[nominalDemand.length];
-
-        // for (int i = 0; i < nominalDemand.length; i++) {
-        //         if (i < 10) {
-        //             assignment[i] = 1;
-        //         } else if (i < 21) {
-        //             assignment[i] = 2;
-        //         } else if (i < 30) {
-        //             assignment[i] = 3;
-        //         } else if (i < 40) {
-        //             assignment[i] = 4;
-        //         } else {
-        //             assignment[i] = 5;
-        //     }
-        // }
-        int[] assignment = {4, 4, 3, 3, 1, 4, 4, 4, 3, 3, 1, 4, 4, 2, 4};
-        
-        // Get the walking times
-        int[][] walkingTimesMatrix = helper.getTimesMatrix(walkingTimesPath, size);
-
-        // Get the driving times
-        int[][] drivingTimesMatrix = helper.getTimesMatrix(drivingTimesPath, size);
-        int[][] timesDPtoShelters = helper.getTimesDPToSheltersSF(drivingTimesMatrix);
+    public boolean addDemandVector(int[] newDemand) throws GRBException {
+        int[] removed = scenarioPool.offer(newDemand, pruneScenarios);
 
-        // Incorporate demand uncertainty in the model
-        List<Integer[]> demandVectors = new ArrayList<Integer[]>();
-        demandVectors.add(nominalDemand);
-        demandVectors.add(lowDemand);
-        demandVectors.add(highDemand);
+        if (removed == null) {
+            return false;
+        }
+        for (int k = removed.length - 1; k >= 0; k--) {
+            removeScenarioConstraints(removed[k]);
+        }
 
-        List<Integer[]> selectedDemandVectors = new ArrayList<Integer[]>();
-        selectedDemandVectors.add(nominalDemand);
+        selectedDemandVectors.append(newDemand);
+        int d = selectedDemandVectors.size() - 1;
 
-        // Create the model
-        ZDRTPL zdrtpl = new ZDRTPL(longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-        demandVectors, selectedDemandVectors, shelterCapacities, numBus, busCap, parameter);
+        for (int i = 0; i < numDP; i++) {
+            accDemand[i] = Arrays.copyOf(accDemand[i], d + 1);
+        }
+        scenarioConstr = Arrays.copyOf(scenarioConstr, d + 1);
+        scenarioConstr[d] = new GRBConstr[2 * numDP];
+        addScenarioConstraints(d);
+        return true;
+    }
 
-        long startTime = System.nanoTime();
+    /**
+     * Removes the demand vector at index d of the selected demand vectors from the model, together with its
+     * accumulated demand variables and constraints. The demand vectors after it move down one index
+     * @param d Index of the demand vector in the selected demand vectors
+     * @throws GRBException
+     */
+    private void removeScenarioConstraints(int d) throws GRBException {
+        int last = selectedDemandVectors.size() - 1;
 
-        zdrtpl.solve();
-        
-        ZDWCD zdwcd = new ZDWCD(zdrtpl.isPickUpLocation, zdrtpl.isClosestPickUp, zdrtpl.trips,
-        busCap, numBus, demandVectors, longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-        selectedDemandVectors, shelterCapacities, types, assignment, parameter);
+        for (GRBConstr constr : scenarioConstr[d]) {
+            model.remove(constr);
+        }
+        System.arraycopy(scenarioConstr, d + 1, scenarioConstr, d, last - d);
+        scenarioConstr = Arrays.copyOf(scenarioConstr, last);
 
-        double excessDemand = zdwcd.getObjective(); // solve WCD
+        for (int i = 0; i < numDP; i++) {
+            model.remove(accDemand[i][d]);
+            System.arraycopy(accDemand[i], d + 1, accDemand[i], d, last - d);
+            accDemand[i] = Arrays.copyOf(accDemand[i], last);
+        }
+        selectedDemandVectors.remove(d);
+    }
 
-        while (excessDemand > 0) {
-            Integer[] newDemand = new Integer[nominalDemand.length];
+    /**
+     * Get the current solution of the model, to be used as a MIP start later on
+     * @return Current solution, or null if the model has not been solved yet
+     * @throws GRBException
+     */
+    public MIPStart getIncumbent() throws GRBException {
+        return MIPStart.fromSolution(model, isPickUpLocation, busAllocation, isClosestPickUp, trips);
+    }
 
-            for (int i = 0; i < nominalDemand.length; i++) {
-                newDemand[i] = (int) zdwcd.demand[i].get(GRB.DoubleAttr.X);
-            }
-            selectedDemandVectors.add(newDemand);
+    /**
+     * Get a snapshot of the current solution, read with one query per family of variables, so that the plan can be
+     * used after the model has been changed or disposed
+     * @return Snapshot of the current solution, or null if the model has no solution
+     * @throws GRBException
+     */
+    public PlanSnapshot getSnapshot() throws GRBException {
+        int d = selectedDemandVectors.size() - 1;
+        GRBVar[] lastAccDemand = new GRBVar[numDP];
 
-            zdrtpl.dispose();
+        for (int i = 0; i < numDP; i++) {
+            lastAccDemand[i] = accDemand[i][d];
+        }
+        return PlanSnapshot.read(model, isPickUpLocation, busAllocation, isClosestPickUp, trips, lastAccDemand, busCap);
+    }
 
-            zdrtpl = new ZDRTPL(longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-            demandVectors, selectedDemandVectors, shelterCapacities, numBus, busCap, parameter);
+    /**
+     * Get a snapshot of the solution of the last solve of the model
+     * @return Snapshot of the current solution
+     * @throws GRBException If the last solve ended without a solution, for example at the time limit or because the
+     * sweep was terminated
+     */
+    private PlanSnapshot getSolvedSnapshot() throws GRBException {
+        PlanSnapshot plan = getSnapshot();
 
-            zdrtpl.solve();
+        if (plan == null) {
+            throw new GRBException("ZDRTPL model with parameter " + parameter + " has no solution, optimization status "
+            + model.get(GRB.IntAttr.Status));
+        }
+        return plan;
+    }
 
-            zdwcd.dispose();
+    /**
+     * Get the schedule of every bus in the current solution, for the bus-aggregated model split over the buses
+     * @return Schedule of every bus, or null if the bus counts of the bus-aggregated model cannot be split within maxT
+     * @throws GRBException
+     */
+    public BusSchedule getSchedule() throws GRBException {
+        return getSchedule(getSnapshot());
+    }
 
-            zdwcd = new ZDWCD(zdrtpl.isPickUpLocation, zdrtpl.isClosestPickUp, zdrtpl.trips,
-            busCap, numBus, demandVectors, longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-            selectedDemandVectors, shelterCapacities, types, assignment, parameter);
-               
-            excessDemand = zdwcd.getObjective();
+    /**
+     * Get the schedule of every bus in a plan of this model, for the bus-aggregated model split over the buses
+     * @param plan Snapshot of a solution of this model
+     * @return Schedule of every bus, or null if the bus counts of the bus-aggregated model cannot be split within maxT
+     */
+    public BusSchedule getSchedule(PlanSnapshot plan) {
+        if (!aggregated) {
+            return new BusSchedule(plan.busAllocation, plan.trips);
         }
-        long endTime = System.nanoTime();
-        long duration = (endTime - startTime) / 1_000_000; // Convert to milliseconds
+        return BusSchedule.split(plan.busAllocation[0], plan.trips[0], times, maxT, numBus);
+    }
 
-        zdrtpl.writeToExcel(duration, count);
-        zdrtpl.dispose();
+    /**
+     * Warm-starts the next solve of the model from a plan, either a previous solution of this model or a plan given by the caller
+     * @param start Plan to start from, nothing is done if it is null
+     * @throws GRBException
+     */
+    public void setStart(MIPStart start) throws GRBException {
+        if (start != null) {
+            start.applyTo(model, isPickUpLocation, busAllocation, isClosestPickUp, trips);
+        }
     }
 
-    public static double runZDRTPLSim(Integer[] nominalDemand, Integer[] lowDemand, Integer[] highDemand,
-    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
-    int busCap, int numBus, double parameter, int size, List<Integer[]> demandSimulations) throws IOException, GRBException {
+    /**
+     * Creates the worst-case demand oracle of the SRTPL problem, the ZDWCD model or the ZDWCDOracle if exactOracle is set
+     * @param numDP Number of demand points
+     * @param busCap Capacity of the buses
+     * @param numBus Number of buses
+     * @param demandVectors List with the nominal, low and high demand vectors
+     * @param shelterCap Array containing the capacities of the shelters
+     * @param types Array containing the types of the demand points
+     * @param assignment Array containing the type of each demand point
+     * @param parameter Correlation parameter
+     * @return Worst-case demand oracle
+     */
+    public static DemandOracle createOracle(int numDP, int busCap, int numBus, DemandMatrix demandVectors,
+    int[] shelterCap, int[] types, int[] assignment, double parameter) {
+        if (exactOracle) {
+            return new ZDWCDOracle(numDP, busCap, numBus, demandVectors, types, assignment, parameter);
+        }
+        return new ZDWCD(numDP, busCap, numBus, demandVectors, shelterCap, types, assignment, parameter);
+    }
+
+    /**
+     * Solves the model against the worst-case demand: every demand vector with excess demand found by the
+     * worst-case demand oracle is added to this model, which is then re-optimized, until no excess demand remains
+     * @param types Array containing the types of the demand points
+     * @param assignment Array containing the type of each demand point
+     * @return Number of demand vectors added to the model
+     * @throws IOException
+     * @throws GRBException If a solve ends without a solution, or the oracle finds excess demand for a selected vector
+     */
+    public int solveRobust(int[] types, int[] assignment) throws IOException, GRBException {
+        try (DemandOracle oracle = createOracle(numDP, busCap, numBus, demandVectors, shelterCap, types, assignment, parameter)) {
+            return solveRobust(oracle);
+        }
+    }
+
+    /**
+     * Solves the model against the worst-case demand using an existing ZDWCD model (or another worst-case demand oracle
+     * of the SRTPL problem), which is re-bound to every new solution of this model instead of being rebuilt
+     * @param zdwcd Worst-case demand oracle with the same buses, demand vectors and correlation parameter as this model
+     * @return Number of demand vectors added to the model
+     * @throws IOException
+     * @throws GRBException If a solve ends without a solution, or the oracle finds excess demand for a selected vector
+     */
+    public int solveRobust(DemandOracle zdwcd) throws IOException, GRBException {
+        int iterations = lazyCuts ? solveLazy(zdwcd) : solveIterative(zdwcd);
+
+        if (aggregated && getSchedule(getSolvedSnapshot()) == null) {
+            // First fit decreasing could not split the bus counts within maxT, so the per-bus model is solved instead,
+            // with the demand vectors found so far
+            System.out.println("The bus counts cannot be split into schedules within maxT, solving the per-bus model");
+            model.dispose();
+            aggregated = false;
+            build();
+
+            iterations += lazyCuts ? solveLazy(zdwcd) : solveIterative(zdwcd);
+        }
+        return iterations;
+    }
+
+    /**
+     * Solves the model against the worst-case demand by re-optimizing it for every new demand vector of the oracle
+     * @param zdwcd Worst-case demand oracle of this model
+     * @return Number of demand vectors added to the model
+     * @throws IOException
+     * @throws GRBException
+     */
+    private int solveIterative(DemandOracle zdwcd) throws IOException, GRBException {
+        long startTime = System.nanoTime();
+        solve();
+        long solveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        PlanSnapshot plan = getSolvedSnapshot();
+        zdwcd.update(plan);
+
+        double excessDemand = zdwcd.getObjective(); // solve ZDWCD
+        int iterations = 0;
+
+        Telemetry.publish("ZDRTPL", parameter, iterations, buildTime, solveTime, System.nanoTime() - startTime, model,
+        selectedDemandVectors.size(), excessDemand);
+        // A model that is reused for the next sweep point is not built again
+        buildTime = 0;
+
+        while (excessDemand > 0) {
+            int[] newDemand = zdwcd.getDemand();
+            // The previous plan is usually close to optimal for the new demand vector as well
+            MIPStart incumbent = plan.toStart();
+            startTime = System.nanoTime();
+
+            if (!addDemandVector(newDemand)) {
+                // The plan already satisfies an equal or larger demand vector, so solving again would not change it.
+                // That is only consistent with the oracle if its excess demand is numerical noise
+                if (excessDemand <= DemandOracle.EXCESS_TOLERANCE) {
+                    break;
+                }
+                throw new GRBException("ZDRTPL model with parameter " + parameter + " is not robust: excess demand "
+                + excessDemand + " for a demand vector that is already selected");
+            }
+            long addTime = System.nanoTime() - startTime;
+            setStart(incumbent);
+            iterations++;
+
+            startTime = System.nanoTime();
+            solve();
+            solveTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            plan = getSolvedSnapshot();
+            zdwcd.update(plan);
+            excessDemand = zdwcd.getObjective();
+
+            Telemetry.publish("ZDRTPL", parameter, iterations, addTime, solveTime, System.nanoTime() - startTime, model,
+            selectedDemandVectors.size(), excessDemand);
+        }
+        return iterations;
+    }
+
+    /**
+     * Solves the model against the worst-case demand in a single branch-and-bound tree: every new incumbent is checked
+     * by the worst-case demand oracle in a callback, and cut off by lazy Demand Point Satisfaction constraints of the
+     * demand vector with excess demand. The demand vectors that are cut on are not added to the selected demand vectors
+     * @param oracle Worst-case demand oracle with the same buses and demand vectors as this model
+     * @return Number of lazy constraints added to the model
+     * @throws IOException
+     * @throws GRBException
+     */
+    public int solveLazy(DemandOracle oracle) throws IOException, GRBException {
+        WorstCaseCallback callback = new WorstCaseCallback("ZDRTPL", parameter, isClosestPickUp, trips, busCap, oracle);
+
+        model.set(GRB.IntParam.LazyConstraints, 1);
+        long startTime = System.nanoTime();
+        SolverProgress.optimize(model, callback);
+        // A single iteration, the calls to the oracle are part of the solve
+        Telemetry.publish("ZDRTPL", parameter, 0, buildTime, System.nanoTime() - startTime, 0, model,
+        selectedDemandVectors.size() + callback.numCuts, 0);
+        buildTime = 0;
+
+        return callback.numCuts;
+    }
+
+    /**
+     * Write the model to a file
+     */
+    public void write() {
+        try {
+            this.model.write("ZDRTPL.lp");
+        } catch (GRBException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Write the results to an Excel file
+     * @param duration Duration of the optimization process
+     * @param count Number of the run
+     * @throws GRBException
+     * @throws IOException
+     */
+    public void writeToExcel(long duration, int count) throws GRBException, IOException {
+        ResultsSink.writeWorkbook(getResult(duration, count), "ZDRTPL_" + parameter + "_" + count + "_Results.xlsx");
+    }
+
+    /**
+     * Get the results of the current solution, from a snapshot of the solution
+     * @param duration Duration of the optimization process
+     * @param count Number of the run
+     * @return Results of the run
+     * @throws GRBException
+     */
+    public RunResult getResult(long duration, int count) throws GRBException {
+        PlanSnapshot plan = getSnapshot();
+        return new RunResult("ZDRTPL", String.valueOf(parameter), count, duration, plan, getSchedule(plan));
+    }
+
+    /**
+     * Dispose of the model and give its environment back to the pool
+     * @throws GRBException
+     */
+    public void dispose() throws GRBException {
+        if (env == null) {
+            return;
+        }
+        model.dispose();
+        EnvPool.release(env);
+        env = null;
+    }
+
+    /**
+     * Same as dispose, so the model can be used in a try-with-resources statement
+     * @throws GRBException
+     */
+    @Override
+    public void close() throws GRBException {
+        dispose();
+    }
+
+    /**
+     * Print the results of the model
+     * @throws GRBException
+     */
+    public void printResults() throws GRBException {
+        PlanSnapshot plan = getSnapshot();
+        BusSchedule schedule = getSchedule(plan);
+
+        for (int b = 0; b < numBus; b++) {
+            for (int i = 0; i < numDP; i++) {
+                if (schedule.busAllocation[b][i] == 1.0) {
+                    if (plan.isPickUpLocation[i] == 1.0) {
+                        for (int j = 0; j < numSh; j++) {
+                            if (schedule.trips[b][i][j] > 0.0) {
+                                System.out.println("Bus " + b + " picks up at demand point " + i + " and drops off at shelter " + j + " " + schedule.trips[b][i][j] + " times.");
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("Objective value: " + plan.objective);
+    }
+
+    /**
+     * Loads the Sioux Falls network instance of the static runners, with the types of the Sioux Falls network
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param size Size of the network
+     * @return Network instance
+     */
+    private static NetworkInstance loadNetwork(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int size) {
         
         /* types of nodes in the network:
         1 = Residential
@@ -519,123 +817,392 @@ public class ZDRTPL {
         //     }
         // }
         int[] assignment = {4, 4, 3, 3, 1, 4, 4, 4, 3, 3, 1, 4, 4, 2, 4};
-        
-        // Get the walking times
-        int[][] walkingTimesMatrix = helper.getTimesMatrix(walkingTimesPath, size);
 
-        // Get the driving times
-        int[][] drivingTimesMatrix = helper.getTimesMatrix(drivingTimesPath, size);
-        int[][] timesDPtoShelters = helper.getTimesDPToSheltersSF(drivingTimesMatrix);
-        // int[][] timesDPtoShelters = helper.getTimesDPToSheltersRD(drivingTimesMatrix, shelterCapacities.length);
+        return NetworkInstance.load(NetworkInstance.NodeRoles.SIOUX_FALLS, drivingTimesPath, walkingTimesPath, shelterCapacities, nominalDemand,
+        lowDemand, highDemand, types, assignment);
+    }
 
-        // Incorporate demand uncertainty in the model
-        List<Integer[]> demandVectors = new ArrayList<Integer[]>();
-        demandVectors.add(nominalDemand);
-        demandVectors.add(lowDemand);
-        demandVectors.add(highDemand);
+    /**
+     * Runs the ZDRTPL model with demand uncertainty for every correlation parameter value, reusing the same
+     * worst-case demand oracle for the whole sweep
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param values Array of correlation parameter values
+     * @param size Number of demand points
+     * @param count Number of the run
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static void runFullZDRTPL(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
+    int busCap, int numBus, double[] values, int size, int count) throws IOException, GRBException {
+        runFullZDRTPL(loadNetwork(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath,
+        drivingTimesPath, size), longestWalk, maxT, busCap, numBus, values, count);
+    }
 
-        List<Integer[]> selectedDemandVectors = new ArrayList<Integer[]>();
-        selectedDemandVectors.add(nominalDemand);
+    /**
+     * Runs the ZDRTPL model of a network instance for every correlation parameter value, reusing the same
+     * worst-case demand oracle for the whole sweep
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param values Array of correlation parameter values
+     * @param count Number of the run
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static void runFullZDRTPL(NetworkInstance network, int longestWalk, int maxT, int busCap, int numBus,
+    double[] values, int count) throws IOException, GRBException {
+        printCandidates(network, longestWalk);
 
-        // Create the model
-        ZDRTPL zdrtpl = new ZDRTPL(longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-        demandVectors, selectedDemandVectors, shelterCapacities, numBus, busCap, parameter);
+        try (ResultsSink sink = new ResultsSink("ZDRTPL_Results_" + count)) {
+            runChain(decreasing(values), network, longestWalk, maxT, busCap, numBus, count, sink);
+        }
+    }
 
-        zdrtpl.solve();
-        
-        ZDWCD zdwcd = new ZDWCD(zdrtpl.isPickUpLocation, zdrtpl.isClosestPickUp, zdrtpl.trips,
-        busCap, numBus, demandVectors, longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-        selectedDemandVectors, shelterCapacities, types, assignment, parameter);
+    /**
+     * Runs the ZDRTPL model with demand uncertainty for every correlation parameter value, solving contiguous chains of
+     * parameter values at the same time on a sweep executor, each chain with its own model and worst-case demand oracle
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param values Array of correlation parameter values
+     * @param size Number of demand points
+     * @param count Number of the run
+     * @param executor Sweep executor that runs the parameter values
+     * @throws Exception
+     */
+    public static void runFullZDRTPL(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
+    int busCap, int numBus, double[] values, int size, int count, SweepExecutor executor) throws Exception {
+        runFullZDRTPL(loadNetwork(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath,
+        drivingTimesPath, size), longestWalk, maxT, busCap, numBus, values, count, executor);
+    }
+
+    /**
+     * Runs the ZDRTPL model of a network instance for every correlation parameter value, solving contiguous chains of
+     * parameter values at the same time on a sweep executor. All chains share the network instance, so the sweep reads
+     * the travel-time files only once
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param values Array of correlation parameter values
+     * @param count Number of the run
+     * @param executor Sweep executor that runs the parameter values
+     * @throws Exception
+     */
+    public static void runFullZDRTPL(NetworkInstance network, int longestWalk, int maxT, int busCap, int numBus,
+    double[] values, int count, SweepExecutor executor) throws Exception {
+        printCandidates(network, longestWalk);
+
+        // The results of all chains go to one output
+        try (ResultsSink sink = new ResultsSink("ZDRTPL_Results_" + count)) {
+            List<Callable<Void>> points = new ArrayList<Callable<Void>>();
+
+            for (List<Double> chain : executor.chains(decreasing(values))) {
+                points.add(() -> {
+                    runChain(chain, network, longestWalk, maxT, busCap, numBus, count, sink);
+                    return null;
+                });
+            }
+            executor.run(points);
+        }
+    }
 
-        double excessDemand = zdwcd.getObjective(); // solve WCD
+    /**
+     * Prints how much smaller the preprocessing of the pick-up locations makes the models of a sweep, which is the same
+     * for every model of the network
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     */
+    private static void printCandidates(NetworkInstance network, int longestWalk) {
+        System.out.println(new PickUpCandidates(network.getWalkingTimes(), network.getTimesDPToShelters(), longestWalk,
+        pruneDominated).summary());
+    }
 
-        while (excessDemand > 0) {
-            Integer[] newDemand = new Integer[nominalDemand.length];
+    /**
+     * Runs the ZDRTPL model for decreasing correlation parameter values with the same model and worst-case demand oracle.
+     * A larger parameter requires more demand points with low demand, so the uncertainty set grows when the parameter
+     * decreases: every demand vector found for a parameter value is still a valid scenario for the next one, and the
+     * next solve starts from the demand vectors and the plan of the previous one
+     * @param values Correlation parameter values in decreasing order
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param count Number of the run
+     * @param sink Output of the results of the sweep
+     * @throws IOException
+     * @throws GRBException
+     */
+    private static void runChain(List<Double> values, NetworkInstance network, int longestWalk, int maxT, int busCap,
+    int numBus, int count, ResultsSink sink) throws IOException, GRBException {
+        DemandMatrix selectedDemandVectors = DemandMatrix.of(network.getNominalDemand());
+
+        // Create the models
+        try (DemandOracle oracle = createOracle(network.numDP, busCap, numBus, network.getDemandValues(),
+        network.getShelterCapacities(), network.getTypes(), network.getAssignment(), values.get(0));
+        ZDRTPL zdrtpl = new ZDRTPL(network, longestWalk, maxT, selectedDemandVectors, numBus, busCap, values.get(0))) {
+
+            for (double parameter : values) {
+                long startTime = System.nanoTime();
+
+                // The solves of one parameter value are one sweep point, which is terminated as a whole
+                SolverProgress.beginPoint("ZDRTPL", parameter);
+                try {
+                    zdrtpl.parameter = parameter;
+                    oracle.setUncertainty(parameter);
+                    zdrtpl.solveRobust(oracle);
+                } finally {
+                    SolverProgress.endPoint();
+                }
+
+                long endTime = System.nanoTime();
+                long duration = (endTime - startTime) / 1_000_000; // Convert to milliseconds
 
-            for (int i = 0; i < nominalDemand.length; i++) {
-                newDemand[i] = (int) zdwcd.demand[i].get(GRB.DoubleAttr.X);
+                sink.write(zdrtpl.getResult(duration, count));
             }
-            selectedDemandVectors.add(newDemand);
+        }
+    }
 
-            zdrtpl.dispose();
+    /**
+     * Sorts correlation parameter values in decreasing order, the order in which their uncertainty sets grow
+     * @param values Array of correlation parameter values
+     * @return Sorted list of the values
+     */
+    private static List<Double> decreasing(double[] values) {
+        List<Double> sorted = new ArrayList<Double>();
 
-            zdrtpl = new ZDRTPL(longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-            demandVectors, selectedDemandVectors, shelterCapacities, numBus, busCap, parameter);
+        for (double value : values) {
+            sorted.add(value);
+        }
+        sorted.sort(Collections.reverseOrder());
+        return sorted;
+    }
 
-            zdrtpl.solve();
+    /**
+     * Runs the RTPL model with demand uncertainty 1 time for 1 parameter value
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param size Number of demand points
+     * @param count Number of the run
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static void runZDRTPL(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
+    int busCap, int numBus, double parameter, int size, int count) throws IOException, GRBException {
+        runZDRTPL(loadNetwork(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath,
+        drivingTimesPath, size), longestWalk, maxT, busCap, numBus, parameter, count);
+    }
 
-            zdwcd.dispose();
+    /**
+     * Runs the ZDRTPL model of a network instance 1 time for 1 parameter value
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param count Number of the run
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static void runZDRTPL(NetworkInstance network, int longestWalk, int maxT, int busCap, int numBus,
+    double parameter, int count) throws IOException, GRBException {
+        DemandMatrix selectedDemandVectors = DemandMatrix.of(network.getNominalDemand());
 
-            zdwcd = new ZDWCD(zdrtpl.isPickUpLocation, zdrtpl.isClosestPickUp, zdrtpl.trips,
-            busCap, numBus, demandVectors, longestWalk, maxT, timesDPtoShelters, walkingTimesMatrix,
-            selectedDemandVectors, shelterCapacities, types, assignment, parameter);
-               
-            excessDemand = zdwcd.getObjective();
-        }
+        // Create the model
+        try (ZDRTPL zdrtpl = new ZDRTPL(network, longestWalk, maxT, selectedDemandVectors, numBus, busCap, parameter)) {
+            System.out.println(zdrtpl.candidates.summary());
 
-        int[][] isClosestPickUp = new int[zdrtpl.numDP][zdrtpl.numDP];
-        for (int i = 0; i < zdrtpl.numDP; i++) {
-            for (int p = 0; p < zdrtpl.numDP; p++) {
-                isClosestPickUp[i][p] = (int) zdrtpl.isClosestPickUp[i][p].get(GRB.DoubleAttr.X);
-            }
-        }
+            long startTime = System.nanoTime();
 
-        int[][][] trips = new int[zdrtpl.numBus][zdrtpl.numDP][zdrtpl.numSh];
-        for (int b = 0; b < zdrtpl.numBus; b++) {
-            for (int i = 0; i < zdrtpl.numDP; i++) {
-                for (int j = 0; j < zdrtpl.numSh; j++) {
-                    trips[b][i][j] = (int) zdrtpl.trips[b][i][j].get(GRB.DoubleAttr.X);
-                }
-            }
+            zdrtpl.solveRobust(network.getTypes(), network.getAssignment());
+            long endTime = System.nanoTime();
+            long duration = (endTime - startTime) / 1_000_000; // Convert to milliseconds
+
+            zdrtpl.writeToExcel(duration, count);
         }
+    }
 
-        List<Integer[]> accDemandsSim = new ArrayList<Integer[]>();
-        
-        for (int k = 0; k < demandSimulations.size(); k++) {
-            Integer[] accDemandSim = new Integer[zdrtpl.numDP];
+    /**
+     * Solves the ZDRTPL model with demand uncertainty 1 time for 1 parameter value, and returns an evaluator of its plan
+     * to run demand simulations on
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param size Number of demand points
+     * @return Evaluator of the plan
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static PlanEvaluator runZDRTPLPlan(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
+    int busCap, int numBus, double parameter, int size) throws IOException, GRBException {
+        return runZDRTPLPlan(loadNetwork(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath,
+        drivingTimesPath, size), longestWalk, maxT, busCap, numBus, parameter);
+    }
 
-            for (int i = 0; i < zdrtpl.numDP; i++) {
-                accDemandSim[i] = 0;
-            }
-            for (int i = 0; i < zdrtpl.numDP; i++) {
-                for (int j = 0; j < zdrtpl.numDP; j ++) {
-                    if (isClosestPickUp[i][j] == 1) {
-                        accDemandSim[i] += demandSimulations.get(k)[j];
-                    }    
-                }
-            }
-            accDemandsSim.add(accDemandSim);
-        }
+    /**
+     * Solves the ZDRTPL model of a network instance 1 time for 1 parameter value, and returns an evaluator of its plan
+     * to run demand simulations on
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @return Evaluator of the plan
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static PlanEvaluator runZDRTPLPlan(NetworkInstance network, int longestWalk, int maxT, int busCap,
+    int numBus, double parameter) throws IOException, GRBException {
+        DemandMatrix selectedDemandVectors = DemandMatrix.of(network.getNominalDemand());
 
-        int failures = 0;
+        PlanSnapshot plan;
 
-        for (int k = 0; k < demandSimulations.size(); k++) {
-            int accSimDemand = 0;
-            boolean fail = false;
+        // Create the model, it is disposed as soon as its solution has been read
+        try (ZDRTPL zdrtpl = new ZDRTPL(network, longestWalk, maxT, selectedDemandVectors, numBus, busCap, parameter)) {
+            System.out.println(zdrtpl.candidates.summary());
 
-            for (int i = 0; i < zdrtpl.numDP; i++) {
-                accSimDemand = accDemandsSim.get(k)[i];
-                int actualCapacity = 0;
+            zdrtpl.solveRobust(network.getTypes(), network.getAssignment());
 
-                for (int j = 0; j < zdrtpl.numSh; j++) {
-                    for (int b = 0; b < zdrtpl.numBus; b++) {
-                        actualCapacity += zdrtpl.busCap * trips[b][i][j];
-                    }
-                }
-                if (accSimDemand > actualCapacity) {
-                    fail = true;
-                }
-            }
-            if (fail) {
-                failures++;
-            }
+            plan = zdrtpl.getSnapshot();
         }
 
-        double successRate = (1 - (failures / (double) demandSimulations.size())) * 100;
-        zdrtpl.dispose();
-        zdwcd.dispose();
+        return new PlanEvaluator(plan);
+    }
 
-        return successRate;
+    /**
+     * Runs the ZDRTPL model with demand uncertainty 1 time for 1 parameter value
+     * and multiple demand simulations, and reports the success rate
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param size Number of demand points
+     * @param demandSimulations List of simulated demand values
+     * @return Success rate of the plan, in percent
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static double runZDRTPLSim(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
+    int busCap, int numBus, double parameter, int size, DemandMatrix demandSimulations) throws IOException, GRBException {
+        return runZDRTPLPlan(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath, drivingTimesPath,
+        longestWalk, maxT, busCap, numBus, parameter, size).evaluate(demandSimulations, false).successRate();
+    }
+
+    /**
+     * Runs the ZDRTPL model with demand uncertainty 1 time for 1 parameter value
+     * and multiple demand simulations, and reports the success rate
+     * @param nominalDemand Array of nominal demand values
+     * @param lowDemand Array of low demand values
+     * @param highDemand Array of high demand values
+     * @param shelterCapacities Array of shelter capacities
+     * @param walkingTimesPath Path to the walking times file
+     * @param drivingTimesPath Path to the driving times file
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param size Number of demand points
+     * @param demandSimulations Scenario file with the simulated demand values, read in place
+     * @return Success rate of the plan, in percent
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static double runZDRTPLSim(int[] nominalDemand, int[] lowDemand, int[] highDemand,
+    int[] shelterCapacities, String walkingTimesPath, String drivingTimesPath, int longestWalk, int maxT,
+    int busCap, int numBus, double parameter, int size, ScenarioStore demandSimulations) throws IOException, GRBException {
+        return runZDRTPLPlan(nominalDemand, lowDemand, highDemand, shelterCapacities, walkingTimesPath, drivingTimesPath,
+        longestWalk, maxT, busCap, numBus, parameter, size).evaluate(demandSimulations, false).successRate();
+    }
+
+    /**
+     * Runs the ZDRTPL model of a network instance 1 time for 1 parameter value and multiple demand simulations,
+     * and reports the success rate
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param demandSimulations List of simulated demand values
+     * @return Success rate of the plan, in percent
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static double runZDRTPLSim(NetworkInstance network, int longestWalk, int maxT, int busCap, int numBus,
+    double parameter, DemandMatrix demandSimulations) throws IOException, GRBException {
+        return runZDRTPLPlan(network, longestWalk, maxT, busCap, numBus, parameter).evaluate(demandSimulations, false)
+        .successRate();
+    }
+
+    /**
+     * Runs the ZDRTPL model of a network instance 1 time for 1 parameter value and multiple demand simulations,
+     * and reports the success rate
+     * @param network Network instance
+     * @param longestWalk Maximum allowed walking distance
+     * @param maxT Maximum allowed driving time for each bus
+     * @param busCap Capacity of each bus
+     * @param numBus Number of buses
+     * @param parameter Parameter for the ZDRTPL model
+     * @param demandSimulations Scenario file with the simulated demand values, read in place
+     * @return Success rate of the plan, in percent
+     * @throws IOException
+     * @throws GRBException
+     */
+    public static double runZDRTPLSim(NetworkInstance network, int longestWalk, int maxT, int busCap, int numBus,
+    double parameter, ScenarioStore demandSimulations) throws IOException, GRBException {
+        return runZDRTPLPlan(network, longestWalk, maxT, busCap, numBus, parameter).evaluate(demandSimulations, false)
+        .successRate();
     }
 }
-    
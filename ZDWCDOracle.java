@@ -0,0 +1,371 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Exact combinatorial replacement of the ZDWCD model. At the type level the uncertainty set only has a few patterns:
+ * no type or exactly one type has high demand, all demand points of the high type have high demand and every other type
+ * needs at least ceil(numOfEachType * parameter) demand points with low demand, the rest keep their nominal demand.
+ * The patterns are solved at the same time, each by dynamic programming over the pick-up clusters where the state is the
+ * number of low demand points chosen so far of each type, and within a cluster it is always best to lower the demand
+ * points of a type with the smallest loss first
+ *
+ * @author 562606ad
+ */
+public class ZDWCDOracle implements DemandOracle {
+    public int numDP;
+    public int numBus;
+    public int busCap;
+    public int numTypes;
+    public double parameter;
+
+    public int[] numOfEachType;
+    public int[] typeOf;
+    public int[] nominal;
+    public int[] low;
+    public int[] high;
+    public int[] clusterOf;
+    public double[] capacity;
+    public int[] demand;
+
+    /**
+     * Constructor for the ZDWCD oracle
+     * @param numDP Number of demand points
+     * @param busCap Capacity of the buses
+     * @param numBus Number of buses
+     * @param demandVectors List with the nominal, low and high demand vectors
+     * @param types Array containing the types of the demand points
+     * @param assignment Array containing the type of each demand point
+     * @param parameter Correlation parameter
+     */
+    public ZDWCDOracle(int numDP, int busCap, int numBus, DemandMatrix demandVectors,
+    int[] types, int[] assignment, double parameter) {
+        this.numDP = numDP;
+        this.numBus = numBus;
+        this.busCap = busCap;
+        this.numTypes = types.length;
+        this.parameter = parameter;
+
+        this.numOfEachType = helper.getNumOfEachType(types, assignment);
+        this.typeOf = new int[numDP];
+        this.nominal = new int[numDP];
+        this.low = new int[numDP];
+        this.high = new int[numDP];
+        this.clusterOf = new int[numDP];
+        this.capacity = new double[numDP];
+
+        int[][] typeAssignment = helper.assignTypes(types, assignment);
+
+        for (int i = 0; i < numDP; i++) {
+            typeOf[i] = -1;
+
+            for (int t = 0; t < numTypes; t++) {
+                if (typeAssignment[i][t] == 1) {
+                    typeOf[i] = t;
+                }
+            }
+            nominal[i] = demandVectors.get(0, i);
+            low[i] = demandVectors.get(1, i);
+            high[i] = demandVectors.get(2, i);
+        }
+    }
+
+    @Override
+    public void update(double[][] isClosestPickUpValues, double[][][] tripsValues) {
+        for (int i = 0; i < numDP; i++) {
+            clusterOf[i] = -1;
+        }
+        for (int p = 0; p < numDP; p++) {
+            capacity[p] = 0;
+
+            for (int b = 0; b < tripsValues.length; b++) {
+                for (int j = 0; j < tripsValues[b][p].length; j++) {
+                    capacity[p] += busCap * tripsValues[b][p][j];
+                }
+            }
+            for (int i = 0; i < numDP; i++) {
+                if (isClosestPickUpValues[p][i] > 0.5) {
+                    clusterOf[i] = p;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setUncertainty(double level) {
+        this.parameter = level;
+    }
+
+    @Override
+    public double getObjective() {
+        // Cluster numDP holds the demand points that do not walk to a pick-up location, their demand is never excess
+        int numClusters = numDP + 1;
+        int[] clusterStart = new int[numClusters + 1];
+        int[] members = new int[numDP];
+
+        for (int i = 0; i < numDP; i++) {
+            clusterStart[cluster(i) + 1]++;
+        }
+        for (int c = 0; c < numClusters; c++) {
+            clusterStart[c + 1] += clusterStart[c];
+        }
+        int[] next = clusterStart.clone();
+
+        for (int i = 0; i < numDP; i++) {
+            members[next[cluster(i)]++] = i;
+        }
+        for (int c = 0; c < numClusters; c++) {
+            sortByLowGain(members, clusterStart[c], clusterStart[c + 1]);
+        }
+
+        // Pattern 0 has no high type, pattern h + 1 has type h high
+        Pattern[] patterns = IntStream.rangeClosed(0, numTypes).parallel()
+        .mapToObj(h -> solvePattern(h - 1, members, clusterStart))
+        .toArray(Pattern[]::new);
+
+        Pattern worst = patterns[0];
+
+        for (Pattern pattern : patterns) {
+            if (pattern.value > worst.value) {
+                worst = pattern;
+            }
+        }
+        demand = worst.demand;
+        return worst.value;
+    }
+
+    @Override
+    public int[] getDemand() {
+        return demand;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Worst-case demand of one type-level pattern
+     */
+    private static class Pattern {
+        double value;
+        int[] demand;
+
+        Pattern(double value, int[] demand) {
+            this.value = value;
+            this.demand = demand;
+        }
+    }
+
+    /**
+     * Finds the worst-case demand when type highType has high demand
+     * @param highType Type with high demand, -1 if no type has high demand
+     * @param members Demand points of each cluster, sorted by type and decreasing gain of low demand
+     * @param clusterStart Index in members of the first demand point of each cluster
+     * @return Worst-case demand of the pattern, with value negative infinity if the pattern is infeasible
+     */
+    private Pattern solvePattern(int highType, int[] members, int[] clusterStart) {
+        int numClusters = clusterStart.length - 1;
+
+        // The state counts the low demand points of each type, capped at the number that is required
+        int[] required = new int[numTypes];
+        int[] stride = new int[numTypes];
+        int numStates = 1;
+
+        for (int t = 0; t < numTypes; t++) {
+            if (t != highType) {
+                required[t] = (int) Math.ceil(numOfEachType[t] * parameter);
+
+                if (required[t] > numOfEachType[t]) {
+                    return new Pattern(Double.NEGATIVE_INFINITY, null);
+                }
+            }
+            stride[t] = numStates;
+            numStates *= required[t] + 1;
+        }
+
+        int[] worstDemand = new int[numDP];
+
+        for (int i = 0; i < numDP; i++) {
+            if (typeOf[i] == -1) {
+                worstDemand[i] = Math.max(nominal[i], Math.max(low[i], high[i]));
+            } else if (typeOf[i] == highType) {
+                worstDemand[i] = high[i];
+            } else {
+                worstDemand[i] = nominal[i];
+            }
+        }
+
+        // Clusters without points that can choose low demand add the same value to every state, so the dynamic
+        // program only runs over the other clusters and stores the number of each type per cluster as one index
+        double offset = 0;
+        int[] active = new int[numClusters];
+        int[][] activeGroupStart = new int[numClusters][];
+        int[][] activeGroupSize = new int[numClusters][];
+        int numActive = 0;
+
+        for (int c = 0; c < numClusters; c++) {
+            // Points of each type in this cluster that can still choose between nominal and low demand
+            int[] groupStart = new int[numTypes];
+            int[] groupSize = new int[numTypes];
+            double base = 0;
+            boolean hasChoice = false;
+
+            for (int m = clusterStart[c]; m < clusterStart[c + 1]; m++) {
+                int i = members[m];
+                base += worstDemand[i];
+
+                if (typeOf[i] != -1 && typeOf[i] != highType) {
+                    if (groupSize[typeOf[i]] == 0) {
+                        groupStart[typeOf[i]] = m;
+                    }
+                    groupSize[typeOf[i]]++;
+                    hasChoice = true;
+                }
+            }
+            if (hasChoice) {
+                active[numActive] = c;
+                activeGroupStart[numActive] = groupStart;
+                activeGroupSize[numActive] = groupSize;
+                numActive++;
+            } else if (c < numDP) {
+                offset += Math.max(0, base - capacity[c]);
+            }
+        }
+
+        double[] best = new double[numStates];
+        Arrays.fill(best, Double.NEGATIVE_INFINITY);
+        best[0] = 0;
+        int[][] fromState = new int[numActive][numStates];
+        int[][] fromCombination = new int[numActive][numStates];
+
+        for (int a = 0; a < numActive; a++) {
+            int c = active[a];
+            int[] groupStart = activeGroupStart[a];
+            int[] groupSize = activeGroupSize[a];
+            double base = 0;
+
+            for (int m = clusterStart[c]; m < clusterStart[c + 1]; m++) {
+                base += worstDemand[members[m]];
+            }
+
+            double[] newBest = new double[numStates];
+            Arrays.fill(newBest, Double.NEGATIVE_INFINITY);
+            int[] combination = new int[numTypes];
+            int index = 0;
+
+            // Enumerate the number of low demand points of each type in this cluster, index counts the combinations
+            // in the same order
+            while (true) {
+                double accumulated = base;
+
+                for (int t = 0; t < numTypes; t++) {
+                    for (int m = groupStart[t]; m < groupStart[t] + combination[t]; m++) {
+                        accumulated += low[members[m]] - nominal[members[m]];
+                    }
+                }
+                double value = c < numDP ? Math.max(0, accumulated - capacity[c]) : 0;
+
+                for (int state = 0; state < numStates; state++) {
+                    if (best[state] == Double.NEGATIVE_INFINITY) {
+                        continue;
+                    }
+                    int newState = 0;
+
+                    for (int t = 0; t < numTypes; t++) {
+                        int count = (state / stride[t]) % (required[t] + 1);
+                        newState += Math.min(required[t], count + combination[t]) * stride[t];
+                    }
+                    if (best[state] + value > newBest[newState]) {
+                        newBest[newState] = best[state] + value;
+                        fromState[a][newState] = state;
+                        fromCombination[a][newState] = index;
+                    }
+                }
+
+                int t = 0;
+
+                while (t < numTypes && combination[t] == groupSize[t]) {
+                    combination[t] = 0;
+                    t++;
+                }
+                if (t == numTypes) {
+                    break;
+                }
+                combination[t]++;
+                index++;
+            }
+            best = newBest;
+        }
+
+        // Every type has its required number of low demand points in the last state
+        int state = numStates - 1;
+
+        if (best[state] == Double.NEGATIVE_INFINITY) {
+            return new Pattern(Double.NEGATIVE_INFINITY, null);
+        }
+        double value = best[state] + offset;
+
+        for (int a = numActive - 1; a >= 0; a--) {
+            int[] groupSize = activeGroupSize[a];
+            int[] combination = new int[numTypes];
+            int index = fromCombination[a][state];
+
+            // The first type counts fastest in the enumeration
+            for (int t = 0; t < numTypes; t++) {
+                combination[t] = index % (groupSize[t] + 1);
+                index /= groupSize[t] + 1;
+            }
+
+            for (int m = clusterStart[active[a]]; m < clusterStart[active[a] + 1]; m++) {
+                int i = members[m];
+
+                if (typeOf[i] != -1 && typeOf[i] != highType && combination[typeOf[i]] > 0) {
+                    worstDemand[i] = low[i];
+                    combination[typeOf[i]]--;
+                }
+            }
+            state = fromState[a][state];
+        }
+        return new Pattern(value, worstDemand);
+    }
+
+    /**
+     * Cluster of a demand point, numDP if it does not walk to a pick-up location
+     * @param i Demand point
+     * @return Cluster of the demand point
+     */
+    private int cluster(int i) {
+        return clusterOf[i] == -1 ? numDP : clusterOf[i];
+    }
+
+    /**
+     * Insertion sort of a range of demand points by type and then by decreasing gain of low demand, clusters are small
+     * @param members Array of demand points
+     * @param from First index of the range
+     * @param to Index after the last index of the range
+     */
+    private void sortByLowGain(int[] members, int from, int to) {
+        for (int m = from + 1; m < to; m++) {
+            int point = members[m];
+            int n = m - 1;
+
+            while (n >= from && before(point, members[n])) {
+                members[n + 1] = members[n];
+                n--;
+            }
+            members[n + 1] = point;
+        }
+    }
+
+    /**
+     * Whether demand point i is sorted before demand point j
+     * @param i Demand point
+     * @param j Demand point
+     * @return True if i has a smaller type, or the same type and a larger gain of low demand
+     */
+    private boolean before(int i, int j) {
+        if (typeOf[i] != typeOf[j]) {
+            return typeOf[i] < typeOf[j];
+        }
+        return low[i] - nominal[i] > low[j] - nominal[j];
+    }
+}
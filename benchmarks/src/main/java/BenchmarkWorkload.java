@@ -0,0 +1,212 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import rtpl.bench.Workload;
+
+/**
+ * Work measured by the benchmarks on the Sioux Falls or Rotterdam network, with the same settings as Main. It is in
+ * the default package, like the classes it uses
+ *
+ * @author 562606ad
+ */
+public class BenchmarkWorkload implements Workload {
+    public static final int LONGEST_WALK = 60;
+    public static final int MAX_T = 180;
+    public static final int BUS_CAP = 30;
+    public static final double PARAMETER = 0.5;
+    public static final long SEED = 100;
+
+    public String drivingTimesPath;
+    public int size;
+    public int numBus;
+    public int pess;
+
+    public NetworkInstance network;
+    public PlanSnapshot rtplPlan;
+    public PlanSnapshot zdrtplPlan;
+    public PlanEvaluator evaluator;
+
+    /**
+     * Constructor for the workload of a network, which reads the data of the network
+     * @param name Name of the network, SiouxFalls or Rotterdam
+     * @param dataDirectory Directory containing the network data folders
+     * @throws IOException
+     */
+    public BenchmarkWorkload(String name, String dataDirectory) throws IOException {
+        int[] types = {1, 2, 3, 4, 5};
+        int[] shelterCapacities;
+        int[] assignment;
+        NetworkInstance.NodeRoles roles;
+        String directory;
+        String file;
+
+        switch (name) {
+            case "SiouxFalls":
+                directory = "Sioux Falls network data";
+                file = "Sioux Falls";
+                roles = NetworkInstance.NodeRoles.SIOUX_FALLS;
+                shelterCapacities = new int[] {240, 333, 360, 300};
+                assignment = new int[] {4, 4, 3, 3, 1, 4, 4, 4, 3, 3, 1, 4, 4, 2, 4};
+                this.numBus = 10;
+                break;
+            case "Rotterdam":
+                directory = "Rotterdam network data";
+                file = "Rotterdam";
+                roles = NetworkInstance.NodeRoles.firstShelters(57, 7);
+                shelterCapacities = new int[] {500, 500, 700, 700, 700, 1000, 1000};
+                // The split of the demand points into the types of the Rotterdam runs of ZDRTPL
+                assignment = new int[roles.size - shelterCapacities.length];
+
+                for (int i = 0; i < assignment.length; i++) {
+                    if (i < 10) {
+                        assignment[i] = 1;
+                    } else if (i < 21) {
+                        assignment[i] = 2;
+                    } else if (i < 30) {
+                        assignment[i] = 3;
+                    } else if (i < 40) {
+                        assignment[i] = 4;
+                    } else {
+                        assignment[i] = 5;
+                    }
+                }
+                this.numBus = 30;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown network: " + name);
+        }
+
+        String path = dataDirectory + File.separator + directory + File.separator;
+        int[][] demand = readDemands(path + "Demands " + file + ".csv", assignment.length);
+
+        this.drivingTimesPath = path + "Driving Times " + file + ".csv";
+        this.size = roles.size;
+        this.network = NetworkInstance.load(roles, drivingTimesPath, path + "Walking Times " + file + ".csv",
+        shelterCapacities, demand[0], demand[1], demand[2], types, assignment);
+        this.pess = network.numDP / 2;
+    }
+
+    /**
+     * Reads the nominal, low and high demand rows of a demands file
+     * @param filePath Path to the demands file
+     * @param numDP Number of demand points, the values after the first numDP are ignored
+     * @return Nominal, low and high demand of each demand point
+     * @throws IOException
+     */
+    private static int[][] readDemands(String filePath, int numDP) throws IOException {
+        int[][] demand = new int[3][numDP];
+
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            br.readLine(); // Header with the nodes
+
+            for (int row = 0; row < 3; row++) {
+                String[] values = br.readLine().split(",");
+
+                for (int i = 0; i < numDP; i++) {
+                    demand[row][i] = Integer.parseInt(values[i + 1].trim());
+                }
+            }
+        }
+        return demand;
+    }
+
+    @Override
+    public Object parseTimes() {
+        return helper.parseTimesMatrix(drivingTimesPath, size);
+    }
+
+    @Override
+    public Object loadTimes() {
+        return helper.getTimesMatrix(drivingTimesPath, size);
+    }
+
+    @Override
+    public Object generateDemandVectors() {
+        return helper.generateDemandVectors(network.getDemandValues());
+    }
+
+    @Override
+    public Object sampleScenarios(int count) {
+        return new ScenarioSampler(network.getDemandValues(), SEED).batch(0, count);
+    }
+
+    @Override
+    public Object buildRTPL(Object selectedDemandVectors) throws Exception {
+        try (RTPL rtpl = new RTPL(network, LONGEST_WALK, MAX_T, pess, (DemandMatrix) selectedDemandVectors, numBus,
+        BUS_CAP)) {
+            return rtpl;
+        }
+    }
+
+    @Override
+    public Object buildZDRTPL(Object selectedDemandVectors) throws Exception {
+        try (ZDRTPL zdrtpl = new ZDRTPL(network, LONGEST_WALK, MAX_T, (DemandMatrix) selectedDemandVectors, numBus,
+        BUS_CAP, PARAMETER)) {
+            return zdrtpl;
+        }
+    }
+
+    @Override
+    public void solvePlans() throws Exception {
+        try (RTPL rtpl = new RTPL(network, LONGEST_WALK, MAX_T, pess, DemandMatrix.of(network.getNominalDemand()),
+        numBus, BUS_CAP)) {
+            rtpl.solveRobust();
+            this.rtplPlan = rtpl.getSnapshot();
+        }
+        try (ZDRTPL zdrtpl = new ZDRTPL(network, LONGEST_WALK, MAX_T, DemandMatrix.of(network.getNominalDemand()),
+        numBus, BUS_CAP, PARAMETER)) {
+            zdrtpl.solveRobust(network.getTypes(), network.getAssignment());
+            this.zdrtplPlan = zdrtpl.getSnapshot();
+        }
+        this.evaluator = new PlanEvaluator(rtplPlan);
+    }
+
+    @Override
+    public Object buildWCD() throws Exception {
+        try (WCD wcd = new WCD(network.numDP, BUS_CAP, numBus, pess, network.getNominalHighDemand(),
+        network.getShelterCapacities())) {
+            wcd.update(rtplPlan);
+            return wcd;
+        }
+    }
+
+    @Override
+    public Object solveWCD() throws Exception {
+        try (WCD wcd = new WCD(network.numDP, BUS_CAP, numBus, pess, network.getNominalHighDemand(),
+        network.getShelterCapacities())) {
+            wcd.update(rtplPlan);
+            wcd.solve();
+            return wcd.getDemand();
+        }
+    }
+
+    @Override
+    public Object buildZDWCD() throws Exception {
+        try (ZDWCD zdwcd = new ZDWCD(network.numDP, BUS_CAP, numBus, network.getDemandValues(),
+        network.getShelterCapacities(), network.getTypes(), network.getAssignment(), PARAMETER)) {
+            zdwcd.update(zdrtplPlan);
+            return zdwcd;
+        }
+    }
+
+    @Override
+    public Object solveZDWCD() throws Exception {
+        try (ZDWCD zdwcd = new ZDWCD(network.numDP, BUS_CAP, numBus, network.getDemandValues(),
+        network.getShelterCapacities(), network.getTypes(), network.getAssignment(), PARAMETER)) {
+            zdwcd.update(zdrtplPlan);
+            zdwcd.solve();
+            return zdwcd.getDemand();
+        }
+    }
+
+    @Override
+    public Object simulate(Object scenarios) {
+        return evaluator.evaluate((DemandMatrix) scenarios, false).successRate();
+    }
+
+    @Override
+    public void dispose() throws Exception {
+        EnvPool.disposeAll();
+    }
+}
@@ -0,0 +1,48 @@
+package rtpl.bench;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBEnv;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command-line arguments, without the benchmarks that need Gurobi if no Gurobi
+ * license is found
+ *
+ * @author 562606ad
+ */
+public class BenchmarkMain {
+    public static final Class<?>[] GUROBI_BENCHMARKS = {
+        ModelBenchmark.class, OracleBenchmark.class, SimulationBenchmark.class };
+
+    public static void main(String[] args) throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(new CommandLineOptions(args));
+
+        if (!hasGurobiLicense()) {
+            System.out.println("No Gurobi license found, only the benchmarks without Gurobi are run");
+
+            for (Class<?> benchmark : GUROBI_BENCHMARKS) {
+                options.exclude(benchmark.getName());
+            }
+        }
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * Whether a Gurobi environment can be started
+     * @return True if Gurobi and its license are available
+     */
+    public static boolean hasGurobiLicense() {
+        try {
+            GRBEnv env = new GRBEnv(true);
+            env.set(GRB.IntParam.OutputFlag, 0);
+            env.start();
+            env.dispose();
+            return true;
+        } catch (Exception | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package rtpl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of reading the travel times and generating demand vectors, which do not need Gurobi
+ *
+ * @author 562606ad
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataBenchmark {
+
+    @Benchmark
+    public Object parseTimes(NetworkState network) {
+        return network.workload.parseTimes();
+    }
+
+    @Benchmark
+    public Object loadTimes(NetworkState network) {
+        return network.workload.loadTimes();
+    }
+
+    @Benchmark
+    public Object generateDemandVectors(NetworkState network) {
+        return network.workload.generateDemandVectors();
+    }
+
+    @Benchmark
+    public Object sampleScenarios(NetworkState network, ScenarioState scenarios) {
+        return network.workload.sampleScenarios(scenarios.scenarios);
+    }
+}
@@ -0,0 +1,55 @@
+package rtpl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of building the RTPL and ZDRTPL models, for a number of selected demand vectors. The models are disposed
+ * within the measured time
+ *
+ * @author 562606ad
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * Selected demand vectors of the models, sampled once per trial
+     */
+    @State(Scope.Benchmark)
+    public static class SelectedState {
+        @Param({"1", "10", "100"})
+        public int demandVectors;
+
+        public Object demand;
+
+        @Setup(Level.Trial)
+        public void setUp(NetworkState network) {
+            demand = network.workload.sampleScenarios(demandVectors);
+        }
+    }
+
+    @Benchmark
+    public Object buildRTPL(NetworkState network, SelectedState selected) throws Exception {
+        return network.workload.buildRTPL(selected.demand);
+    }
+
+    @Benchmark
+    public Object buildZDRTPL(NetworkState network, SelectedState selected) throws Exception {
+        return network.workload.buildZDRTPL(selected.demand);
+    }
+}
@@ -0,0 +1,32 @@
+package rtpl.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Network of a benchmark, read once per trial. The data is read from the parent directory of the working directory,
+ * or from the directory in the system property rtpl.data
+ *
+ * @author 562606ad
+ */
+@State(Scope.Benchmark)
+public class NetworkState {
+    @Param({"SiouxFalls", "Rotterdam"})
+    public String network;
+
+    public Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workload.create(network, System.getProperty("rtpl.data", ".."));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.dispose();
+    }
+}
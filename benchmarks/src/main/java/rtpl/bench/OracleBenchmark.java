@@ -0,0 +1,44 @@
+package rtpl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of building and solving the WCD and ZDWCD models for the solved plan of the network. The demand values of
+ * these models are fixed by the network, so they only depend on the network
+ *
+ * @author 562606ad
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OracleBenchmark {
+
+    @Benchmark
+    public Object buildWCD(NetworkState network, PlanState plan) throws Exception {
+        return network.workload.buildWCD();
+    }
+
+    @Benchmark
+    public Object solveWCD(NetworkState network, PlanState plan) throws Exception {
+        return network.workload.solveWCD();
+    }
+
+    @Benchmark
+    public Object buildZDWCD(NetworkState network, PlanState plan) throws Exception {
+        return network.workload.buildZDWCD();
+    }
+
+    @Benchmark
+    public Object solveZDWCD(NetworkState network, PlanState plan) throws Exception {
+        return network.workload.solveZDWCD();
+    }
+}
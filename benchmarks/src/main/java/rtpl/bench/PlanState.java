@@ -0,0 +1,20 @@
+package rtpl.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Solved RTPL and ZDRTPL plans of the network of a benchmark, solved once per trial
+ *
+ * @author 562606ad
+ */
+@State(Scope.Benchmark)
+public class PlanState {
+
+    @Setup(Level.Trial)
+    public void setUp(NetworkState network) throws Exception {
+        network.workload.solvePlans();
+    }
+}
@@ -0,0 +1,25 @@
+package rtpl.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Demand scenarios of a benchmark, sampled once per trial
+ *
+ * @author 562606ad
+ */
+@State(Scope.Benchmark)
+public class ScenarioState {
+    @Param({"1000", "100000"})
+    public int scenarios;
+
+    public Object demand;
+
+    @Setup(Level.Trial)
+    public void setUp(NetworkState network) {
+        demand = network.workload.sampleScenarios(scenarios);
+    }
+}
@@ -0,0 +1,29 @@
+package rtpl.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the simulation at the end of RTPL.runRTPLSim, the solved RTPL plan against sampled demand scenarios.
+ * Only the plan needs Gurobi, the simulation itself does not
+ *
+ * @author 562606ad
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Benchmark
+    public Object simulate(NetworkState network, PlanState plan, ScenarioState scenarios) {
+        return network.workload.simulate(scenarios.demand);
+    }
+}
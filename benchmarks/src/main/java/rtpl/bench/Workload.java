@@ -0,0 +1,111 @@
+package rtpl.bench;
+
+/**
+ * Work measured by the benchmarks on one network. The classes of the project are in the default package, which cannot
+ * be imported from the package of the benchmarks, so the work is done by BenchmarkWorkload in the default package and
+ * reached through this interface. Demand matrices are passed around as opaque objects for the same reason
+ *
+ * @author 562606ad
+ */
+public interface Workload {
+
+    /**
+     * Creates the workload of a network
+     * @param network Name of the network, SiouxFalls or Rotterdam
+     * @param dataDirectory Directory containing the network data folders
+     * @return Workload of the network
+     * @throws Exception
+     */
+    static Workload create(String network, String dataDirectory) throws Exception {
+        return (Workload) Class.forName("BenchmarkWorkload").getConstructor(String.class, String.class)
+        .newInstance(network, dataDirectory);
+    }
+
+    /**
+     * Parses the driving times CSV file, without the binary cache
+     * @return Travel-time matrix
+     */
+    Object parseTimes();
+
+    /**
+     * Loads the driving times through the binary cache
+     * @return Travel-time matrix
+     */
+    Object loadTimes();
+
+    /**
+     * Generates the 100000 demand vectors of helper.generateDemandVectors
+     * @return Demand matrix
+     */
+    Object generateDemandVectors();
+
+    /**
+     * Samples demand scenarios of the network
+     * @param count Number of scenarios
+     * @return Demand matrix
+     */
+    Object sampleScenarios(int count);
+
+    /**
+     * Builds and disposes the RTPL model
+     * @param selectedDemandVectors Demand matrix of sampleScenarios with the selected demand vectors of the model
+     * @return The disposed model
+     * @throws Exception
+     */
+    Object buildRTPL(Object selectedDemandVectors) throws Exception;
+
+    /**
+     * Builds and disposes the ZDRTPL model
+     * @param selectedDemandVectors Demand matrix of sampleScenarios with the selected demand vectors of the model
+     * @return The disposed model
+     * @throws Exception
+     */
+    Object buildZDRTPL(Object selectedDemandVectors) throws Exception;
+
+    /**
+     * Solves the RTPL and ZDRTPL models once, the plans are used by the worst-case demand and simulation benchmarks
+     * @throws Exception
+     */
+    void solvePlans() throws Exception;
+
+    /**
+     * Builds the WCD model, binds it to the RTPL plan and disposes it
+     * @return The disposed model
+     * @throws Exception
+     */
+    Object buildWCD() throws Exception;
+
+    /**
+     * Builds the WCD model, binds it to the RTPL plan, solves it and disposes it
+     * @return Worst-case demand
+     * @throws Exception
+     */
+    Object solveWCD() throws Exception;
+
+    /**
+     * Builds the ZDWCD model, binds it to the ZDRTPL plan and disposes it
+     * @return The disposed model
+     * @throws Exception
+     */
+    Object buildZDWCD() throws Exception;
+
+    /**
+     * Builds the ZDWCD model, binds it to the ZDRTPL plan, solves it and disposes it
+     * @return Worst-case demand
+     * @throws Exception
+     */
+    Object solveZDWCD() throws Exception;
+
+    /**
+     * Evaluates the RTPL plan against demand scenarios, the simulation at the end of RTPL.runRTPLSim
+     * @param scenarios Demand matrix of sampleScenarios
+     * @return Success rate
+     */
+    Object simulate(Object scenarios);
+
+    /**
+     * Disposes the Gurobi environments used by the workload
+     * @throws Exception
+     */
+    void dispose() throws Exception;
+}
@@ -3,7 +3,6 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.io.FileOutputStream;
 
 import org.apache.poi.ss.usermodel.*;
@@ -21,43 +20,38 @@ public class helper {
     /**
      * Generate random demand values for each demand point
      * @param size Number of demand points
-     * @return List of nominal demand values, low demand values, and high demand values
+     * @return Demand matrix with the nominal demand values, low demand values, and high demand values
      */
-    public static List<Integer[]> generateDemandValues(int size) {
-        Integer[] demandValues = new Integer[size];
-        Integer[] lowDemandValues = new Integer[size];
-        Integer[] highDemandValues = new Integer[size];
-        List<Integer[]> demandValuesList = new ArrayList<Integer[]>();
+    public static DemandMatrix generateDemandValues(int size) {
+        int[] demandValues = new int[size];
+        int[] lowDemandValues = new int[size];
+        int[] highDemandValues = new int[size];
 
         for (int i = 0; i < size; i++) {
             demandValues[i] = (int) ((int) (Math.random() * (60 - 26 + 1)) + 26);
             lowDemandValues[i] = (int) (demandValues[i] * (Math.random() * (0.5) + 0.5));
             highDemandValues[i] = (int) (demandValues[i] * ((Math.random() * (1.5 - 2 + 1)) + 1.5));
         }
-        demandValuesList.add(demandValues);
-        demandValuesList.add(lowDemandValues);
-        demandValuesList.add(highDemandValues);
-
-        return demandValuesList;
+        return DemandMatrix.of(demandValues, lowDemandValues, highDemandValues);
     }
 
     /**
      * Write demand values to an Excel file in order to store them and use them for all the scenarios
-     * @param demandValuesList List of nominal demand values, low demand values, and high demand values
+     * @param demandValuesList Demand matrix with the nominal demand values, low demand values, and high demand values
      * @param filePath Path to the Excel file
      * @throws IOException
      */
-    public static void writeDemandValuesToExcel(List<Integer[]> demandValuesList, String filePath) throws IOException {
+    public static void writeDemandValuesToExcel(DemandMatrix demandValuesList, String filePath) throws IOException {
         Workbook workbook = new XSSFWorkbook();
         Sheet sheet = workbook.createSheet("Demand Values");
 
         int rowNum = 0;
-        for (Integer[] demandValues : demandValuesList) {
+        for (int s = 0; s < demandValuesList.size(); s++) {
             Row row = sheet.createRow(rowNum++);
             int colNum = 0;
-            for (Integer value : demandValues) {
+            for (int i = 0; i < demandValuesList.numDP; i++) {
                 Cell cell = row.createCell(colNum++);
-                cell.setCellValue(value);
+                cell.setCellValue(demandValuesList.get(s, i));
             }
         }
         try (FileOutputStream outputStream = new FileOutputStream(filePath)) {
@@ -106,12 +100,22 @@ public class helper {
     }
 
     /**
-     * Get the distance matrix from a CSV file
+     * Get the distance matrix from a CSV file, through its binary cache so the CSV file is only parsed when it changes
      * @param filePath Path to the CSV file
      * @param size Number nodes in the network
      * @return A matrix containing the distances between each pair of nodes
      */
     public static int[][] getTimesMatrix(String filePath, int size) {
+        return TimesCache.getTimesMatrix(filePath, size);
+    }
+
+    /**
+     * Parse the distance matrix from a CSV file
+     * @param filePath Path to the CSV file
+     * @param size Number nodes in the network
+     * @return A matrix containing the distances between each pair of nodes
+     */
+    public static int[][] parseTimesMatrix(String filePath, int size) {
         int[] columnIndices = {0, 1, 2};
         List<int[]> times = null;
 
@@ -138,24 +142,9 @@ public class helper {
      * @return Matrix containing the times from each demand point to the shelters
      */
     public static int[][] getTimesDPToSheltersSF(int[][] timesMatrix) {
-        int[][] timesDPtoShelters = new int[15][4];
-        int dp = 0;
-
-        for (int i = 0; i < 24; i++) {
-            int sh = 0;
-            
-            if (i != 13 && i != 14 && i != 18 && i != 22 && i != 23 && i != 12 && i != 19 && i != 20 && i != 21) {
-                for (int j = 0; j < 24; j++) {
-                    if (j == 21 || j == 19 || j == 20 || j == 12) {
-                        timesDPtoShelters[dp][sh] = timesMatrix[i][j];
-                        sh++;
-                    }
-                }
-                dp++;
-            }
-        }
-        return timesDPtoShelters;
+        return NetworkInstance.NodeRoles.SIOUX_FALLS.timesToShelters(timesMatrix);
     }
+
     /**
      * Get only the times from the demand points to the shelters in the Rotterdam City network, using the fact that the shelter locations are at the first numShelters index of the matrix
      * @param timesMatrix Matrix containing the times between each pair of nodes
@@ -163,27 +152,12 @@ public class helper {
      * @return Matrix containing the times from each demand point to the shelters
      */
     public static int[][] getTimesDPToSheltersRD(int[][] timesMatrix, int numShelters) {
-        int[][] timesDPtoShelters = new int[timesMatrix.length - numShelters][numShelters];
-        int dp = 0;
-
-        for (int i = 0; i < timesMatrix.length; i++) {
-            int sh = 0;
-            
-            if (i > numShelters - 1) {
-                for (int j = 0; j < 24; j++) {
-                    if (j < numShelters) {
-                        timesDPtoShelters[dp][sh] = timesMatrix[i][j];
-                        sh++;
-                    }
-                }
-                dp++;
-            }
-        }
-        return timesDPtoShelters;
+        return NetworkInstance.NodeRoles.firstShelters(timesMatrix.length, numShelters).timesToShelters(timesMatrix);
     }
 
     /**
-     * Read columns from a CSV file
+     * Read columns from a CSV file, a first line that is not a number (such as the header of the Rotterdam files) is
+     * skipped
      * @param filePath Path to the CSV file
      * @param columnIndices Indices of the columns to read
      * @return List of the values in the columns
@@ -193,9 +167,17 @@ public class helper {
         List<int[]> data = new ArrayList<>();
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
+            boolean first = true;
             
             while ((line = br.readLine()) != null) {
                 String[] values = line.split(",");
+
+                boolean header = first && !values[0].trim().matches("-?\\d+");
+                first = false;
+
+                if (header) {
+                    continue;
+                }
                 // Extract the columns based on indices provided
                 int[] selectedColumns = new int[columnIndices.length];
 
@@ -208,32 +190,12 @@ public class helper {
         return data;
     }
 
-    private static Random rand = new Random(100);
-
-    public static List<Integer[]> generateDemandVectors(List<Integer[]> demandValues) {
-        int size = demandValues.get(0).length;
-        List<Integer[]> demandVectors = new ArrayList<Integer[]>();
-        
-        Integer[] demand = demandValues.get(0);
-        Integer[] lowDemand = demandValues.get(1);
-        Integer[] highDemand = demandValues.get(2);
-
-        for (int i = 0; i < 100000; i++) {
-            Integer[] demandVector = new Integer[size];
-
-            for (int j = 0; j < size; j++) {
-                double x = rand.nextDouble();
-            
-                if (x < 1.0/3) {
-                    demandVector[j] = (demand[j]);
-                } else if (x < 2.0/3) {
-                    demandVector[j] = (lowDemand[j]);
-                } else {
-                    demandVector[j] = (highDemand[j]);
-                }
-            }
-            demandVectors.add(demandVector);
-        }
-        return demandVectors;
+    /**
+     * Generate 100000 demand vectors in which every demand point has nominal, low or high demand with equal probability
+     * @param demandValues Demand matrix with the nominal demand values, low demand values, and high demand values
+     * @return Demand matrix with the demand vectors, the same for every call
+     */
+    public static DemandMatrix generateDemandVectors(DemandMatrix demandValues) {
+        return new ScenarioSampler(demandValues, 100).batch(0, 100000);
     }
 }